@@ -0,0 +1,57 @@
+package com.ravesql;
+
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+
+import java.beans.PropertyDescriptor;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 💾 **LobAwareRowMapper** 💾
+ *
+ * A {@link BeanPropertyRowMapper} that maps BLOB and CLOB columns to lazy handles instead of materializing them:
+ * properties of type {@link InputStream} receive {@link ResultSet#getBinaryStream(int)} and properties of type
+ * {@link Reader} receive {@link ResultSet#getCharacterStream(int)}. The handles read straight from the database
+ * and are only valid while the cursor is open on their row, so they are meant for streaming queries that consume
+ * each row before moving on. All other properties are mapped exactly as by {@link BeanPropertyRowMapper}.
+ *
+ * @param <T> the type of the mapped beans
+ */
+class LobAwareRowMapper<T> extends BeanPropertyRowMapper<T> {
+
+    /**
+     * Creates a mapper for the given bean type.
+     *
+     * @param mappedClass the class each row is mapped to
+     */
+    LobAwareRowMapper(Class<T> mappedClass) {
+        super(mappedClass);
+    }
+
+    /**
+     * @param <T>         the type of the mapped beans
+     * @param mappedClass the class each row is mapped to
+     * @return a new mapper for the given bean type
+     */
+    public static <T> LobAwareRowMapper<T> newInstance(Class<T> mappedClass) {
+        return new LobAwareRowMapper<>(mappedClass);
+    }
+
+    @Override
+    protected Object getColumnValue(ResultSet rs, int index, PropertyDescriptor pd) throws SQLException {
+        return getColumnValue(rs, index, pd.getPropertyType());
+    }
+
+    @Override
+    protected Object getColumnValue(ResultSet rs, int index, Class<?> paramType) throws SQLException {
+        if (paramType == InputStream.class) {
+            return rs.getBinaryStream(index);
+        }
+        if (paramType == Reader.class) {
+            return rs.getCharacterStream(index);
+        }
+        return super.getColumnValue(rs, index, paramType);
+    }
+}
@@ -0,0 +1,174 @@
+package com.ravesql;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * 🌳 **OneToMany** 🌳
+ *
+ * Describes how {@link RaveRepository#rawQueryOneToMany(String, OneToMany, Object...)} folds a joined result set
+ * into parents with nested children, so a whole graph loads in one query instead of one query per parent.
+ *
+ * Columns starting with the child prefix map onto the child type, with the prefix stripped; every other column
+ * maps onto the parent type. Rows are grouped by the parent ID column, and each row with a non-null child ID
+ * adds one child to its parent, so parents without children from a {@code LEFT JOIN} keep an empty collection:
+ *
+ * <pre>
+ * SELECT o.id, o.customer, i.id AS item_id, i.sku AS item_sku
+ * FROM orders o LEFT JOIN line_items i ON i.order_id = o.id
+ * ORDER BY o.id
+ * </pre>
+ *
+ * Mappings are immutable, reusable and built with {@link #builder(Class, Class)}.
+ *
+ * @param <P> the parent type
+ * @param <C> the child type
+ */
+public class OneToMany<P, C> {
+
+    private final Class<P> parentType;
+    private final Class<C> childType;
+    private final String parentIdColumn;
+    private final String childPrefix;
+    private final String childIdColumn;
+    private final BiConsumer<P, C> childAdder;
+
+    private OneToMany(Builder<P, C> builder) {
+        this.parentType = builder.parentType;
+        this.childType = builder.childType;
+        this.parentIdColumn = builder.parentIdColumn;
+        this.childPrefix = builder.childPrefix;
+        this.childIdColumn = builder.childIdColumn != null ? builder.childIdColumn : builder.childPrefix + "id";
+        this.childAdder = builder.childAdder;
+    }
+
+    /**
+     * 🏗️ **Builder** 🏗️
+     *
+     * @param <P>        the parent type
+     * @param <C>        the child type
+     * @param parentType the class of the parent objects
+     * @param childType  the class of the child objects
+     * @return a builder preset to parent ID column {@code id} and child prefix {@code <child class>_}
+     */
+    public static <P, C> Builder<P, C> builder(Class<P> parentType, Class<C> childType) {
+        return new Builder<>(parentType, childType);
+    }
+
+    /**
+     * @return the class of the parent objects
+     */
+    public Class<P> getParentType() {
+        return parentType;
+    }
+
+    /**
+     * @return the class of the child objects
+     */
+    public Class<C> getChildType() {
+        return childType;
+    }
+
+    /**
+     * @return the column whose value identifies a parent
+     */
+    public String getParentIdColumn() {
+        return parentIdColumn;
+    }
+
+    /**
+     * @return the prefix marking the columns of the child
+     */
+    public String getChildPrefix() {
+        return childPrefix;
+    }
+
+    /**
+     * @return the column whose null value means a row carries no child
+     */
+    public String getChildIdColumn() {
+        return childIdColumn;
+    }
+
+    /**
+     * @return the callback attaching a child to its parent
+     */
+    public BiConsumer<P, C> getChildAdder() {
+        return childAdder;
+    }
+
+    /**
+     * 🏗️ **OneToMany.Builder** 🏗️
+     *
+     * Collects the settings of a {@link OneToMany} mapping.
+     *
+     * @param <P> the parent type
+     * @param <C> the child type
+     */
+    public static final class Builder<P, C> {
+        private final Class<P> parentType;
+        private final Class<C> childType;
+        private String parentIdColumn = "id";
+        private String childPrefix;
+        private String childIdColumn;
+        private BiConsumer<P, C> childAdder;
+
+        private Builder(Class<P> parentType, Class<C> childType) {
+            this.parentType = Objects.requireNonNull(parentType, "parentType");
+            this.childType = Objects.requireNonNull(childType, "childType");
+            this.childPrefix = childType.getSimpleName().toLowerCase(Locale.ROOT) + "_";
+        }
+
+        /**
+         * @param parentIdColumn the column whose value identifies a parent
+         * @return this builder
+         */
+        public Builder<P, C> parentId(String parentIdColumn) {
+            this.parentIdColumn = Objects.requireNonNull(parentIdColumn, "parentIdColumn");
+            return this;
+        }
+
+        /**
+         * @param childPrefix the prefix marking the columns of the child, e.g. {@code item_}
+         * @return this builder
+         */
+        public Builder<P, C> childPrefix(String childPrefix) {
+            if (childPrefix == null || childPrefix.isEmpty()) {
+                throw new IllegalArgumentException("Child prefix must not be empty.");
+            }
+            this.childPrefix = childPrefix;
+            return this;
+        }
+
+        /**
+         * @param childIdColumn the full name of the column whose null value means a row carries no child;
+         *                      defaults to the child prefix followed by {@code id}
+         * @return this builder
+         */
+        public Builder<P, C> childId(String childIdColumn) {
+            this.childIdColumn = childIdColumn;
+            return this;
+        }
+
+        /**
+         * @param childAdder the callback attaching a child to its parent, e.g. {@code Order::addItem}
+         * @return this builder
+         */
+        public Builder<P, C> children(BiConsumer<P, C> childAdder) {
+            this.childAdder = childAdder;
+            return this;
+        }
+
+        /**
+         * @return the configured mapping
+         * @throws IllegalStateException if no child adder was set
+         */
+        public OneToMany<P, C> build() {
+            if (childAdder == null) {
+                throw new IllegalStateException("A child adder is required.");
+            }
+            return new OneToMany<>(this);
+        }
+    }
+}
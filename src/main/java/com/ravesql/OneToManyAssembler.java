@@ -0,0 +1,181 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepository.SqlRepositoryException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.beans.PropertyDescriptor;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 🌳 **OneToManyAssembler** 🌳
+ *
+ * Folds the rows of a joined result set into parents with nested children in a single pass, as described by a
+ * {@link OneToMany} mapping. Parents are looked up by ID in a hash map, so rows need not be sorted, and are
+ * returned in order of first appearance. Columns are matched to bean properties once, on the first row; after
+ * that each row costs one map lookup plus one property write per mapped column. Values are written through a
+ * {@link BeanWrapper} with the shared conversion service, as {@link BeanPropertyRowMapper} does, so columns read
+ * back as another type, such as {@code VARCHAR} columns of enum properties, are converted.
+ *
+ * An assembler holds the parents of one execution and must not be reused.
+ *
+ * @param <P> the parent type
+ * @param <C> the child type
+ */
+final class OneToManyAssembler<P, C> implements RowMapper<P> {
+
+    /**
+     * A result set column bound to a writable bean property.
+     */
+    private static final class ColumnBinding {
+        private final int index;
+        private final String propertyName;
+        private final Class<?> propertyType;
+
+        ColumnBinding(int index, PropertyDescriptor descriptor) {
+            this.index = index;
+            this.propertyName = descriptor.getName();
+            this.propertyType = descriptor.getPropertyType();
+        }
+    }
+
+    private final OneToMany<P, C> mapping;
+    private final Map<Object, P> parents = new LinkedHashMap<>();
+
+    private ColumnBinding[] parentBindings;
+    private ColumnBinding[] childBindings;
+    private int parentIdIndex;
+    private int childIdIndex;
+
+    OneToManyAssembler(OneToMany<P, C> mapping) {
+        this.mapping = mapping;
+    }
+
+    /**
+     * Adds one row to the graph.
+     *
+     * @return the parent the row belongs to
+     */
+    @Override
+    public P mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (parentBindings == null) {
+            bind(rs.getMetaData());
+        }
+        Object parentId = rs.getObject(parentIdIndex);
+        if (parentId == null) {
+            throw new SqlRepositoryException("Parent ID column '" + mapping.getParentIdColumn() + "' is null.");
+        }
+        P parent = parents.get(parentId);
+        if (parent == null) {
+            parent = instantiate(mapping.getParentType(), parentBindings, rs);
+            parents.put(parentId, parent);
+        }
+        if (rs.getObject(childIdIndex) != null) {
+            mapping.getChildAdder().accept(parent, instantiate(mapping.getChildType(), childBindings, rs));
+        }
+        return parent;
+    }
+
+    /**
+     * @return the assembled parents, in order of first appearance
+     */
+    List<P> getParents() {
+        return new ArrayList<>(parents.values());
+    }
+
+    /**
+     * Matches the result set columns to parent and child properties.
+     */
+    private void bind(ResultSetMetaData metaData) throws SQLException {
+        Map<String, PropertyDescriptor> parentProperties = writableProperties(mapping.getParentType());
+        Map<String, PropertyDescriptor> childProperties = writableProperties(mapping.getChildType());
+        String prefix = mapping.getChildPrefix().toLowerCase(Locale.ROOT);
+        String parentIdColumn = mapping.getParentIdColumn().toLowerCase(Locale.ROOT);
+        String childIdColumn = mapping.getChildIdColumn().toLowerCase(Locale.ROOT);
+        List<ColumnBinding> parents = new ArrayList<>();
+        List<ColumnBinding> children = new ArrayList<>();
+
+        for (int index = 1; index <= metaData.getColumnCount(); index++) {
+            String column = JdbcUtils.lookupColumnName(metaData, index).toLowerCase(Locale.ROOT);
+            if (column.equals(parentIdColumn)) {
+                parentIdIndex = index;
+            }
+            if (column.equals(childIdColumn)) {
+                childIdIndex = index;
+            }
+            PropertyDescriptor descriptor = column.startsWith(prefix)
+                    ? childProperties.get(normalize(column.substring(prefix.length())))
+                    : parentProperties.get(normalize(column));
+            if (descriptor != null) {
+                (column.startsWith(prefix) ? children : parents).add(new ColumnBinding(index, descriptor));
+            }
+        }
+
+        if (parentIdIndex == 0) {
+            throw new SqlRepositoryException("Parent ID column '" + mapping.getParentIdColumn()
+                    + "' not found in result set.");
+        }
+        if (childIdIndex == 0) {
+            throw new SqlRepositoryException("Child ID column '" + mapping.getChildIdColumn()
+                    + "' not found in result set.");
+        }
+        parentBindings = parents.toArray(new ColumnBinding[0]);
+        childBindings = children.toArray(new ColumnBinding[0]);
+    }
+
+    /**
+     * Creates a bean and populates it from the bound columns of the current row.
+     */
+    private static <T> T instantiate(Class<T> type, ColumnBinding[] bindings, ResultSet rs) throws SQLException {
+        T bean = BeanUtils.instantiateClass(type);
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(bean);
+        wrapper.setConversionService(DefaultConversionService.getSharedInstance());
+        for (ColumnBinding binding : bindings) {
+            Object value = JdbcUtils.getResultSetValue(rs, binding.index, binding.propertyType);
+            if (value == null && binding.propertyType.isPrimitive()) {
+                continue;
+            }
+            try {
+                wrapper.setPropertyValue(binding.propertyName, value);
+            } catch (BeansException e) {
+                throw new SqlRepositoryException("Failed to set property '" + binding.propertyName + "' of "
+                        + type.getName() + " from column " + binding.index + ".", e);
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * Indexes the writable properties of a type by their normalized name.
+     */
+    private static Map<String, PropertyDescriptor> writableProperties(Class<?> type) {
+        Map<String, PropertyDescriptor> properties = new HashMap<>();
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+            if (descriptor.getWriteMethod() != null) {
+                properties.put(normalize(descriptor.getName()), descriptor);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Lets {@code line_total}, {@code LINE_TOTAL} and {@code lineTotal} meet on common ground.
+     */
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+}
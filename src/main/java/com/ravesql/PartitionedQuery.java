@@ -0,0 +1,338 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepository.SqlRepositoryException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.lang.ref.Cleaner;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 🪓 **PartitionedQuery** 🪓
+ *
+ * Runs the slices of a {@link PartitionedScan} on a private pool of daemon threads and hands their mapped rows
+ * back as one stream. Each slice streams its cursor into a bounded buffer of {@code bufferRows} rows, and at most
+ * {@code parallelism} slices run at a time, so a slow consumer holds back the scan instead of buffering the table.
+ *
+ * Closing the stream cancels running slices and stops the pool; a stream dropped without being closed is cleaned
+ * up once it is garbage collected, which may take a while, so it should always be closed.
+ *
+ * @param <T> the type of the mapped rows
+ */
+final class PartitionedQuery<T> implements Iterator<T> {
+
+    private static final AtomicInteger SCAN_COUNTER = new AtomicInteger();
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * Marks the end of a slice in its buffer.
+     */
+    private static final Object END_OF_SLICE = new Object();
+
+    private final RaveRepository repository;
+    private final String sqlPath;
+    private final RowMapper<T> rowMapper;
+    private final SqlParameterSource baseParams;
+    private final PartitionedScan scan;
+    private final long[] bounds;
+    private final Workers workers;
+    private final Cleaner.Cleanable cleanable;
+
+    /**
+     * Buffers of slices submitted and not yet consumed, in submission order, used when the scan is ordered.
+     */
+    private final Deque<BlockingQueue<Object>> inFlight = new ArrayDeque<>();
+
+    /**
+     * Buffer shared by all slices, used when the scan is unordered.
+     */
+    private final BlockingQueue<Object> shared;
+
+    private int submitted;
+    private int finished;
+    private T nextRow;
+
+    private PartitionedQuery(RaveRepository repository, String sqlPath, RowMapper<T> rowMapper,
+                             SqlParameterSource baseParams, PartitionedScan scan) {
+        this.repository = repository;
+        this.sqlPath = sqlPath;
+        this.rowMapper = rowMapper;
+        this.baseParams = baseParams;
+        this.scan = scan;
+        this.bounds = scan.sliceBounds();
+        this.shared = scan.isOrdered() ? null
+                : new ArrayBlockingQueue<>(scan.getBufferRows() * scan.getParallelism());
+        this.workers = new Workers(Executors.newFixedThreadPool(scan.getParallelism(), threadFactory()));
+        // The workers must not reference this query, or it would never become unreachable
+        this.cleanable = CLEANER.register(this, workers);
+    }
+
+    /**
+     * Starts a partitioned scan and exposes its rows as a stream. Closing the stream cancels slices that
+     * have not completed yet.
+     *
+     * @param <T>        the type of the mapped rows
+     * @param repository the repository each slice runs through
+     * @param sqlPath    the path to the SQL file with range placeholders
+     * @param rowMapper  the mapper turning each row into an object
+     * @param baseParams parameters shared by all slices
+     * @param scan       how to slice the key range
+     * @return a stream of the mapped rows of all slices
+     */
+    static <T> Stream<T> stream(RaveRepository repository, String sqlPath, RowMapper<T> rowMapper,
+                                SqlParameterSource baseParams, PartitionedScan scan) {
+        PartitionedQuery<T> query = new PartitionedQuery<>(repository, sqlPath, rowMapper, baseParams, scan);
+        query.fillWindow();
+        int characteristics = scan.isOrdered() ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(query, characteristics), false)
+                .onClose(query::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRow == null) {
+            nextRow = fetch();
+        }
+        return nextRow != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T row = nextRow;
+        nextRow = null;
+        return row;
+    }
+
+    /**
+     * Cancels running slices and stops the worker threads.
+     */
+    void close() {
+        cleanable.clean();
+    }
+
+    private int sliceCount() {
+        return bounds.length - 1;
+    }
+
+    /**
+     * Waits for the next row, moving on to later slices as earlier ones end.
+     *
+     * @return the next row, or {@code null} once every slice has ended
+     */
+    @SuppressWarnings("unchecked")
+    private T fetch() {
+        while (finished < sliceCount()) {
+            Object item;
+            try {
+                item = scan.isOrdered() ? inFlight.element().take() : shared.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new SqlRepositoryException("Interrupted while waiting for partition of " + sqlPath, e);
+            }
+            if (item == END_OF_SLICE) {
+                finished++;
+                if (scan.isOrdered()) {
+                    inFlight.remove();
+                }
+                fillWindow();
+            } else if (item instanceof SliceFailure) {
+                close();
+                Throwable cause = ((SliceFailure) item).cause;
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new SqlRepositoryException("Partition of " + sqlPath + " failed.", cause);
+            } else {
+                return (T) item;
+            }
+        }
+        close();
+        return null;
+    }
+
+    /**
+     * Starts slices until {@code parallelism} are running or every slice has been started.
+     */
+    private void fillWindow() {
+        while (submitted < sliceCount() && submitted - finished < scan.getParallelism()) {
+            int index = submitted++;
+            SqlParameterSource sliceParams = new SliceParameterSource(baseParams,
+                    scan.getRangeStartParameter(), bounds[index],
+                    scan.getRangeEndParameter(), bounds[index + 1]);
+            BlockingQueue<Object> buffer = shared;
+            if (scan.isOrdered()) {
+                buffer = new ArrayBlockingQueue<>(scan.getBufferRows());
+                inFlight.add(buffer);
+            }
+            workers.execute(slice(repository, sqlPath, rowMapper, sliceParams, buffer, workers));
+        }
+    }
+
+    /**
+     * Streams one slice into its buffer, ending it with {@link #END_OF_SLICE} or a {@link SliceFailure}. Static,
+     * so running slices never keep the query reachable.
+     */
+    private static <T> Runnable slice(RaveRepository repository, String sqlPath, RowMapper<T> rowMapper,
+                                      SqlParameterSource sliceParams, BlockingQueue<Object> buffer, Workers workers) {
+        return () -> {
+            Object last = END_OF_SLICE;
+            try (Stream<T> rows = repository.streamInternal(sqlPath, rowMapper, sliceParams)) {
+                Iterator<T> cursor = rows.iterator();
+                while (cursor.hasNext()) {
+                    workers.put(buffer, cursor.next());
+                }
+            } catch (InterruptedException e) {
+                // The scan was closed; the cursor and its connection are released above
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                last = new SliceFailure(e);
+            }
+            try {
+                workers.put(buffer, last);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    private static ThreadFactory threadFactory() {
+        int scanId = SCAN_COUNTER.incrementAndGet();
+        AtomicInteger threadCounter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "ravesql-scan-" + scanId + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The thread pool of one scan. Stopping it is the scan's cleanup action, run by {@link #close()} or by the
+     * cleaner once the stream has been dropped.
+     */
+    private static final class Workers implements Runnable {
+        private final ExecutorService executor;
+        private volatile boolean stopped;
+
+        Workers(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        void execute(Runnable slice) {
+            executor.execute(slice);
+        }
+
+        /**
+         * Waits for room in a buffer, giving up once the scan stops even if the interrupt was swallowed by
+         * the JDBC driver.
+         */
+        void put(BlockingQueue<Object> buffer, Object item) throws InterruptedException {
+            while (!buffer.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (stopped) {
+                    throw new InterruptedException("Partitioned scan closed.");
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            stopped = true;
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A slice's failure, handed to the consumer in place of its remaining rows.
+     */
+    private static final class SliceFailure {
+        private final Throwable cause;
+
+        SliceFailure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Adds a slice's bounds on top of the parameters shared by all slices.
+     */
+    private static final class SliceParameterSource extends AbstractSqlParameterSource {
+        private final SqlParameterSource base;
+        private final String startName;
+        private final long start;
+        private final String endName;
+        private final long end;
+
+        SliceParameterSource(SqlParameterSource base, String startName, long start, String endName, long end) {
+            this.base = base;
+            this.startName = startName;
+            this.start = start;
+            this.endName = endName;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasValue(String paramName) {
+            return startName.equals(paramName) || endName.equals(paramName) || base.hasValue(paramName);
+        }
+
+        @Override
+        public Object getValue(String paramName) {
+            if (startName.equals(paramName)) {
+                return start;
+            }
+            if (endName.equals(paramName)) {
+                return end;
+            }
+            return base.getValue(paramName);
+        }
+
+        @Override
+        public int getSqlType(String paramName) {
+            if (startName.equals(paramName) || endName.equals(paramName)) {
+                return Types.BIGINT;
+            }
+            return base.getSqlType(paramName);
+        }
+
+        @Override
+        public String getTypeName(String paramName) {
+            if (startName.equals(paramName) || endName.equals(paramName)) {
+                return null;
+            }
+            return base.getTypeName(paramName);
+        }
+
+        @Override
+        public String[] getParameterNames() {
+            String[] baseNames = base.getParameterNames();
+            int baseLength = baseNames == null ? 0 : baseNames.length;
+            String[] names = new String[baseLength + 2];
+            if (baseLength > 0) {
+                System.arraycopy(baseNames, 0, names, 0, baseLength);
+            }
+            names[baseLength] = startName;
+            names[baseLength + 1] = endName;
+            return names;
+        }
+    }
+}
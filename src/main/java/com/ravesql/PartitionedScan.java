@@ -0,0 +1,235 @@
+package com.ravesql;
+
+/**
+ * 🪓 **PartitionedScan** 🪓
+ *
+ * Describes how {@link RaveRepository#rawPartitionedQuery(String, Class, PartitionedScan, Object...)} splits a
+ * large scan. The key range {@code [lowerBound, upperBound)} is cut into contiguous slices; each slice runs the
+ * same SQL file with its own bounds bound to the {@code :rangeStart} and {@code :rangeEnd} placeholders
+ * (inclusive and exclusive respectively), e.g.
+ *
+ * <pre>
+ * SELECT * FROM tracks WHERE id &gt;= :rangeStart AND id &lt; :rangeEnd ORDER BY id
+ * </pre>
+ *
+ * Slices run on at most {@code parallelism} threads, and so hold at most that many connections at a time.
+ * Keep it at or below the size of your connection pool. Each running slice buffers at most {@code bufferRows}
+ * mapped rows ahead of the consumer, so a scan holds at most {@code parallelism * bufferRows} rows in memory.
+ *
+ * Scans are immutable and built with {@link #builder(long, long)}.
+ */
+public class PartitionedScan {
+
+    /**
+     * Slices cut per thread when no partition count is given, so one slow slice doesn't idle the other threads.
+     */
+    static final int PARTITIONS_PER_THREAD = 4;
+
+    /**
+     * Rows buffered per running slice when no buffer size is given.
+     */
+    static final int DEFAULT_BUFFER_ROWS = 256;
+
+    private final long lowerBound;
+    private final long upperBound;
+    private final int partitions;
+    private final int parallelism;
+    private final int bufferRows;
+    private final boolean ordered;
+    private final String rangeStartParameter;
+    private final String rangeEndParameter;
+
+    private PartitionedScan(Builder builder) {
+        this.lowerBound = builder.lowerBound;
+        this.upperBound = builder.upperBound;
+        this.parallelism = builder.parallelism;
+        this.partitions = builder.partitions > 0 ? builder.partitions : builder.parallelism * PARTITIONS_PER_THREAD;
+        this.bufferRows = builder.bufferRows;
+        this.ordered = builder.ordered;
+        this.rangeStartParameter = builder.rangeStartParameter;
+        this.rangeEndParameter = builder.rangeEndParameter;
+    }
+
+    /**
+     * 🏗️ **Builder** 🏗️
+     *
+     * @param lowerBound the smallest key included in the scan
+     * @param upperBound the first key past the end of the scan
+     * @return a builder preset to four slices per thread, 256 buffered rows per slice, {@code min(4, cores)} threads and ordered results
+     * @throws IllegalArgumentException if {@code upperBound} is smaller than {@code lowerBound}
+     */
+    public static Builder builder(long lowerBound, long upperBound) {
+        if (upperBound < lowerBound) {
+            throw new IllegalArgumentException("Upper bound must not be smaller than lower bound.");
+        }
+        return new Builder(lowerBound, upperBound);
+    }
+
+    /**
+     * @return the smallest key included in the scan
+     */
+    public long getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * @return the first key past the end of the scan
+     */
+    public long getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * @return the number of slices the key range is cut into
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * @return the maximum number of slices running at the same time
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the maximum number of mapped rows each running slice buffers ahead of the consumer
+     */
+    public int getBufferRows() {
+        return bufferRows;
+    }
+
+    /**
+     * @return whether results keep slice order, rather than arriving as slices complete
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * @return the name of the parameter bound to each slice's inclusive start
+     */
+    public String getRangeStartParameter() {
+        return rangeStartParameter;
+    }
+
+    /**
+     * @return the name of the parameter bound to each slice's exclusive end
+     */
+    public String getRangeEndParameter() {
+        return rangeEndParameter;
+    }
+
+    /**
+     * Cuts the key range into contiguous slices of nearly equal width. Empty slices are dropped, so a narrow
+     * range may yield fewer slices than requested.
+     *
+     * @return slice boundaries: slice {@code i} covers {@code [bounds[i], bounds[i + 1])}
+     */
+    long[] sliceBounds() {
+        // Width computed in floating point so ranges spanning most of the long domain don't overflow
+        double width = ((double) upperBound - (double) lowerBound) / partitions;
+        long[] bounds = new long[partitions + 1];
+        int count = 0;
+        bounds[count++] = lowerBound;
+        for (int i = 1; i < partitions; i++) {
+            long bound = lowerBound + (long) Math.ceil(width * i);
+            if (bound > bounds[count - 1] && bound < upperBound) {
+                bounds[count++] = bound;
+            }
+        }
+        if (upperBound > bounds[count - 1]) {
+            bounds[count++] = upperBound;
+        }
+        long[] result = new long[count];
+        System.arraycopy(bounds, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * 🏗️ **PartitionedScan.Builder** 🏗️
+     *
+     * Collects the settings of a {@link PartitionedScan}.
+     */
+    public static final class Builder {
+        private final long lowerBound;
+        private final long upperBound;
+        private int partitions;
+        private int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors());
+        private int bufferRows = DEFAULT_BUFFER_ROWS;
+        private boolean ordered = true;
+        private String rangeStartParameter = "rangeStart";
+        private String rangeEndParameter = "rangeEnd";
+
+        private Builder(long lowerBound, long upperBound) {
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        /**
+         * @param partitions the number of slices to cut the key range into; at least 1, and by default four times
+         *                   the parallelism
+         * @return this builder
+         */
+        public Builder partitions(int partitions) {
+            if (partitions < 1) {
+                throw new IllegalArgumentException("Partitions must be at least 1.");
+            }
+            this.partitions = partitions;
+            return this;
+        }
+
+        /**
+         * @param parallelism the maximum number of slices, and so connections, in use at the same time; at least 1
+         * @return this builder
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be at least 1.");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param bufferRows the maximum number of mapped rows each running slice buffers ahead of the consumer;
+         *                   at least 1
+         * @return this builder
+         */
+        public Builder bufferRows(int bufferRows) {
+            if (bufferRows < 1) {
+                throw new IllegalArgumentException("Buffer rows must be at least 1.");
+            }
+            this.bufferRows = bufferRows;
+            return this;
+        }
+
+        /**
+         * @param ordered {@code true} to stream slices in key order, {@code false} to stream them as they complete
+         * @return this builder
+         */
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * @param rangeStartParameter the parameter name of each slice's inclusive start
+         * @param rangeEndParameter   the parameter name of each slice's exclusive end
+         * @return this builder
+         */
+        public Builder rangeParameters(String rangeStartParameter, String rangeEndParameter) {
+            this.rangeStartParameter = rangeStartParameter;
+            this.rangeEndParameter = rangeEndParameter;
+            return this;
+        }
+
+        /**
+         * @return the configured scan
+         */
+        public PartitionedScan build() {
+            return new PartitionedScan(this);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepository.SqlRepositoryException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 📡 **QueryPublisher** 📡
+ *
+ * A cold {@link Flow.Publisher} over the rows of one query. Every subscription runs the query afresh and reads
+ * its cursor only as far as the subscriber has requested, so a slow subscriber holds back the fetch instead of
+ * buffering the result. All JDBC work runs on a bounded executor, in short drains of at most {@link #DRAIN_LIMIT}
+ * rows, so many subscriptions can share a few threads without blocking the caller's event loop. Cancelling a
+ * subscription cancels the running statement and releases its connection.
+ *
+ * @param <T> the type of the mapped rows
+ */
+final class QueryPublisher<T> implements Flow.Publisher<T> {
+
+    /**
+     * Maximum rows emitted per drain before yielding the thread to other subscriptions.
+     */
+    static final int DRAIN_LIMIT = 256;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PreparedStatementCreatorFactory statementFactory;
+    private final Object[] parameterValues;
+    private final RowMapper<T> rowMapper;
+    private final Executor executor;
+
+    /**
+     * Prepares the statement once; each subscription creates its own instance of it.
+     *
+     * @param jdbcTemplate the template to execute through
+     * @param sql          the SQL with named parameters
+     * @param paramSource  the parameters for the SQL query
+     * @param rowMapper    the mapper turning each row into an object
+     * @param executor     the executor running the JDBC work
+     */
+    QueryPublisher(JdbcTemplate jdbcTemplate, String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper,
+                   Executor executor) {
+        ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+        List<SqlParameter> declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource);
+        this.jdbcTemplate = jdbcTemplate;
+        this.statementFactory = new PreparedStatementCreatorFactory(
+                NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource), declaredParameters);
+        this.parameterValues = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+        this.rowMapper = rowMapper;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        QuerySubscription subscription = new QuerySubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * @return the shared executor used when none is configured, a fixed pool of {@code min(4, cores)} daemon threads
+     */
+    static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    private static final class DefaultExecutorHolder {
+        private static final Executor EXECUTOR = createDefaultExecutor();
+
+        private static Executor createDefaultExecutor() {
+            int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+            AtomicInteger threadCounter = new AtomicInteger();
+            return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "ravesql-publisher-" + threadCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    /**
+     * One run of the query for one subscriber. Signals from any thread only bump {@link #wip}; whoever moves it
+     * off zero schedules a drain, so at most one drain touches the cursor at a time and signals to the subscriber
+     * are never concurrent.
+     */
+    private final class QuerySubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile PreparedStatement statement;
+        private volatile Throwable invalidRequest;
+
+        private Stream<T> rows;
+        private Iterator<T> cursor;
+
+        QuerySubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " rows; demand must be positive.");
+                cancelled = true;
+            } else {
+                requested.getAndAccumulate(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            PreparedStatement running = statement;
+            if (running != null) {
+                try {
+                    running.cancel();
+                } catch (SQLException ignored) {
+                    // The drain closes the statement anyway
+                }
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                execute();
+            }
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // No drain is running: either nobody scheduled one yet or this drain is handing itself off
+                terminate(new SqlRepositoryException("Query publisher executor rejected the query.", e));
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            long emitted = 0;
+            for (;;) {
+                if (cancelled) {
+                    terminate(invalidRequest);
+                    return;
+                }
+                long demand = requested.get();
+                long sent = 0;
+                try {
+                    if (cursor == null && demand > 0) {
+                        open();
+                    }
+                    while (sent != demand) {
+                        if (cancelled) {
+                            terminate(invalidRequest);
+                            return;
+                        }
+                        if (!cursor.hasNext()) {
+                            close();
+                            cancelled = true;
+                            subscriber.onComplete();
+                            return;
+                        }
+                        subscriber.onNext(cursor.next());
+                        sent++;
+                        if (++emitted == DRAIN_LIMIT) {
+                            break;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    terminate(cancelled ? null : e);
+                    return;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-sent);
+                }
+                if (emitted == DRAIN_LIMIT) {
+                    // Yield the thread to other subscriptions; wip stays above zero so no second drain starts
+                    execute();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Opens the cursor, capturing the statement so {@link #cancel()} can interrupt it.
+         */
+        private void open() {
+            PreparedStatementCreator creator = statementFactory.newPreparedStatementCreator(parameterValues);
+            rows = jdbcTemplate.queryForStream(connection -> {
+                PreparedStatement preparedStatement = creator.createPreparedStatement(connection);
+                statement = preparedStatement;
+                return preparedStatement;
+            }, rowMapper);
+            cursor = rows.iterator();
+        }
+
+        /**
+         * Releases the cursor and, unless the failure is {@code null}, reports it to the subscriber.
+         */
+        private void terminate(Throwable failure) {
+            cancelled = true;
+            try {
+                close();
+            } catch (RuntimeException e) {
+                if (failure != null) {
+                    failure.addSuppressed(e);
+                }
+            }
+            if (failure != null) {
+                subscriber.onError(failure);
+            }
+        }
+
+        private void close() {
+            Stream<T> open = rows;
+            rows = null;
+            cursor = null;
+            statement = null;
+            if (open != null) {
+                open.close();
+            }
+        }
+    }
+}
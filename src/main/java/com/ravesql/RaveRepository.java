@@ -2,21 +2,26 @@ package com.ravesql;
 
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.ravesql.annotation.SqlPath;
 
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.Method;
-import java.nio.charset.StandardCharsets;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * 🎉 **RaveRepository** 🎉
@@ -61,9 +66,10 @@ public class RaveRepository {
      *
      * This cache stores your SQL queries, keeping them as ready and accessible as your favorite rave anthems.
      * By caching SQL strings, {@code RaveRepository} ensures that your data interactions never miss a beat,
-     * maintaining the high-energy flow of your application's backend.
+     * maintaining the high-energy flow of your application's backend. File I/O happens outside any map lock,
+     * concurrent first loads of the same path share one read, and failed loads are remembered briefly.
      */
-    private final ConcurrentHashMap<String, String> sqlCache = new ConcurrentHashMap<>();
+    private final SqlFileLoader sqlCache;
 
     /**
      * 🎧 **jdbcTemplate** 🎧
@@ -74,6 +80,36 @@ public class RaveRepository {
      */
     private final NamedParameterJdbcTemplate jdbcTemplate;
 
+    /**
+     * 🐢 **slowQueryLog** 🐢
+     *
+     * The optional slow-query detector. When {@code null}, calls run without any timing overhead.
+     */
+    private volatile SlowQueryLog slowQueryLog;
+
+    /**
+     * 🔁 **retryPolicies** 🔁
+     *
+     * Retry policies keyed by SQL path. Paths without a policy run exactly once.
+     */
+    private final ConcurrentHashMap<String, RetryPolicy> retryPolicies;
+
+    /**
+     * 📡 **publisherExecutor** 📡
+     *
+     * Runs the JDBC work of publisher queries. When {@code null}, a shared pool of {@code min(4, cores)} daemon
+     * threads is used.
+     */
+    private volatile Executor publisherExecutor;
+
+    /**
+     * 🔒 **transactional** 🔒
+     *
+     * Whether every call runs inside a transaction this repository manages itself, as in a transactional
+     * {@link RaveSession}.
+     */
+    private final boolean transactional;
+
     /**
      * 🛠️ **RaveRepository Constructor** 🛠️
      *
@@ -85,6 +121,29 @@ public class RaveRepository {
      */
     public RaveRepository(NamedParameterJdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.transactional = false;
+        this.sqlCache = new SqlFileLoader(getClass().getClassLoader());
+        this.retryPolicies = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 🛠️ **Derived RaveRepository Constructor** 🛠️
+     *
+     * Constructs a repository that shares the SQL cache and slow-query log of {@code parent} but executes
+     * through another template, e.g. one pinned to a single connection.
+     *
+     * @param parent                the repository to share configuration with
+     * @param jdbcTemplate          the JDBC template to execute through
+     * @param transactional         whether every call runs inside a transaction the repository manages itself,
+     *                              which turns off retries and plan capture
+     */
+    RaveRepository(RaveRepository parent, NamedParameterJdbcTemplate jdbcTemplate, boolean transactional) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlCache = parent.sqlCache;
+        this.slowQueryLog = parent.slowQueryLog;
+        this.publisherExecutor = parent.publisherExecutor;
+        this.transactional = transactional;
+        this.retryPolicies = transactional ? new ConcurrentHashMap<>() : parent.retryPolicies;
     }
 
     /**
@@ -102,8 +161,7 @@ public class RaveRepository {
      */
     public <T> List<T> query(Class<T> type, Object... keyValues) {
         String sqlPath = getSqlPathFromCaller();
-        String sql = readSqlFromFile(sqlPath);
-        return queryInternal(sql, type, keyValues);
+        return queryInternal(sqlPath, type, keyValues);
     }
 
     /**
@@ -120,8 +178,7 @@ public class RaveRepository {
      */
     public <T> List<T> query(Class<T> type, Object params) {
         String sqlPath = getSqlPathFromCaller();
-        String sql = readSqlFromFile(sqlPath);
-        return queryInternal(sql, type, params);
+        return queryInternal(sqlPath, type, params);
     }
 
     /**
@@ -137,8 +194,7 @@ public class RaveRepository {
      */
     public <T> List<T> query(Class<T> type) {
         String sqlPath = getSqlPathFromCaller();
-        String sql = readSqlFromFile(sqlPath);
-        return queryInternal(sql, type, null);
+        return queryInternal(sqlPath, type, null);
     }
 
     /**
@@ -155,8 +211,7 @@ public class RaveRepository {
      * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
      */
     public <T> List<T> rawQuery(String sqlPath, Class<T> type, Object... keyValues) {
-        String sql = readSqlFromFile(sqlPath);
-        return queryInternal(sql, type, keyValues);
+        return queryInternal(sqlPath, type, keyValues);
     }
 
     /**
@@ -173,8 +228,7 @@ public class RaveRepository {
      * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
      */
     public <T> List<T> rawQuery(String sqlPath, Class<T> type, Object params) {
-        String sql = readSqlFromFile(sqlPath);
-        return queryInternal(sql, type, params);
+        return queryInternal(sqlPath, type, params);
     }
 
     /**
@@ -189,8 +243,7 @@ public class RaveRepository {
      * @throws SqlRepositoryException if there's an issue with the SQL query
      */
     public <T> List<T> rawQuery(String sqlPath, Class<T> type) {
-        String sql = readSqlFromFile(sqlPath);
-        return queryInternal(sql, type, null);
+        return queryInternal(sqlPath, type, null);
     }
 
     /**
@@ -207,8 +260,7 @@ public class RaveRepository {
      */
     public <T> T queryForObject(Class<T> type, Object... keyValues) {
         String sqlPath = getSqlPathFromCaller();
-        String sql = readSqlFromFile(sqlPath);
-        return queryForObjectInternal(sql, type, keyValues);
+        return queryForObjectInternal(sqlPath, type, keyValues);
     }
 
     /**
@@ -224,8 +276,7 @@ public class RaveRepository {
      */
     public <T> T queryForObject(Class<T> type, Object params) {
         String sqlPath = getSqlPathFromCaller();
-        String sql = readSqlFromFile(sqlPath);
-        return queryForObjectInternal(sql, type, params);
+        return queryForObjectInternal(sqlPath, type, params);
     }
 
     /**
@@ -240,8 +291,7 @@ public class RaveRepository {
      */
     public <T> T queryForObject(Class<T> type) {
         String sqlPath = getSqlPathFromCaller();
-        String sql = readSqlFromFile(sqlPath);
-        return queryForObjectInternal(sql, type, null);
+        return queryForObjectInternal(sqlPath, type, null);
     }
 
     /**
@@ -257,8 +307,7 @@ public class RaveRepository {
      * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
      */
     public <T> T rawQueryForObject(String sqlPath, Class<T> type, Object... keyValues) {
-        String sql = readSqlFromFile(sqlPath);
-        return queryForObjectInternal(sql, type, keyValues);
+        return queryForObjectInternal(sqlPath, type, keyValues);
     }
 
     /**
@@ -274,8 +323,7 @@ public class RaveRepository {
      * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
      */
     public <T> T rawQueryForObject(String sqlPath, Class<T> type, Object params) {
-        String sql = readSqlFromFile(sqlPath);
-        return queryForObjectInternal(sql, type, params);
+        return queryForObjectInternal(sqlPath, type, params);
     }
 
     /**
@@ -290,8 +338,7 @@ public class RaveRepository {
      * @throws SqlRepositoryException if there's an issue with the SQL query
      */
     public <T> T rawQueryForObject(String sqlPath, Class<T> type) {
-        String sql = readSqlFromFile(sqlPath);
-        return queryForObjectInternal(sql, type, null);
+        return queryForObjectInternal(sqlPath, type, null);
     }
 
     /**
@@ -306,8 +353,7 @@ public class RaveRepository {
      */
     public int update(Object... keyValues) {
         String sqlPath = getSqlPathFromCaller();
-        String sql = readSqlFromFile(sqlPath);
-        return updateInternal(sql, keyValues);
+        return updateInternal(sqlPath, keyValues);
     }
 
     /**
@@ -321,8 +367,7 @@ public class RaveRepository {
      */
     public int update(Object params) {
         String sqlPath = getSqlPathFromCaller();
-        String sql = readSqlFromFile(sqlPath);
-        return updateInternal(sql, params);
+        return updateInternal(sqlPath, params);
     }
 
     /**
@@ -335,8 +380,7 @@ public class RaveRepository {
      */
     public int update() {
         String sqlPath = getSqlPathFromCaller();
-        String sql = readSqlFromFile(sqlPath);
-        return updateInternal(sql, null);
+        return updateInternal(sqlPath, null);
     }
 
     /**
@@ -350,8 +394,7 @@ public class RaveRepository {
      * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
      */
     public int rawUpdate(String sqlPath, Object... keyValues) {
-        String sql = readSqlFromFile(sqlPath);
-        return updateInternal(sql, keyValues);
+        return updateInternal(sqlPath, keyValues);
     }
 
     /**
@@ -365,8 +408,7 @@ public class RaveRepository {
      * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
      */
     public int rawUpdate(String sqlPath, Object params) {
-        String sql = readSqlFromFile(sqlPath);
-        return updateInternal(sql, params);
+        return updateInternal(sqlPath, params);
     }
 
     /**
@@ -379,8 +421,7 @@ public class RaveRepository {
      * @throws SqlRepositoryException if there's an issue with the SQL query
      */
     public int rawUpdate(String sqlPath) {
-        String sql = readSqlFromFile(sqlPath);
-        return updateInternal(sql, null);
+        return updateInternal(sqlPath, null);
     }
 
     /**
@@ -395,11 +436,7 @@ public class RaveRepository {
      */
     public int[] batchUpdate(List<?> paramObjects) {
         String sqlPath = getSqlPathFromCaller();
-        String sql = readSqlFromFile(sqlPath);
-        SqlParameterSource[] batchParams = paramObjects.stream()
-                .map(BeanPropertySqlParameterSource::new)
-                .toArray(SqlParameterSource[]::new);
-        return jdbcTemplate.batchUpdate(sql, batchParams);
+        return batchUpdateInternal(sqlPath, paramObjects);
     }
 
     /**
@@ -414,11 +451,7 @@ public class RaveRepository {
      * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
      */
     public int[] rawBatchUpdate(String sqlPath, List<?> paramObjects) {
-        String sql = readSqlFromFile(sqlPath);
-        SqlParameterSource[] batchParams = paramObjects.stream()
-                .map(BeanPropertySqlParameterSource::new)
-                .toArray(SqlParameterSource[]::new);
-        return jdbcTemplate.batchUpdate(sql, batchParams);
+        return batchUpdateInternal(sqlPath, paramObjects);
     }
 
     /**
@@ -450,10 +483,391 @@ public class RaveRepository {
         sqlCache.clear();
     }
 
+    /**
+     * 🪩 **Create Repository** 🪩
+     *
+     * Builds an implementation of a repository interface whose abstract methods are annotated with
+     * {@code @SqlPath}. SQL files, parameter bindings, row mappers and return-type handling are all resolved
+     * once, right here, so each call only has to look up a precomputed handler and drop the beat.
+     *
+     * <ul>
+     *   <li>Parameters bind by name, taken from {@code @SqlParam} or from the compiled parameter names
+     *       ({@code -parameters}). A single bean, {@code Map} or {@code SqlParameterSource} argument without
+     *       {@code @SqlParam} is used as the parameter object itself.</li>
+     *   <li>Query SQL may return {@code List}, {@code Collection}, {@code Iterable}, {@code Stream},
+     *       {@code Optional} or a single value.</li>
+     *   <li>Update SQL may return {@code int}, {@code long} or {@code void}, or {@code int[]} for a batch
+     *       update taking a single {@code List} of parameter objects.</li>
+     * </ul>
+     *
+     * @param <R>                 the repository interface type
+     * @param repositoryInterface the repository interface to implement
+     * @return an implementation of the interface backed by this repository
+     * @throws SqlRepositoryException if the interface cannot be implemented, e.g. a method lacks {@code @SqlPath}
+     */
+    public <R> R createRepository(Class<R> repositoryInterface) {
+        if (!repositoryInterface.isInterface()) {
+            throw new SqlRepositoryException("Not an interface: " + repositoryInterface.getName());
+        }
+        RepositoryInvocationHandler handler = new RepositoryInvocationHandler(this, repositoryInterface);
+        return repositoryInterface.cast(Proxy.newProxyInstance(
+                repositoryInterface.getClassLoader(), new Class<?>[]{repositoryInterface}, handler));
+    }
+
+    /**
+     * 🐢 **Set Slow Query Log** 🐢
+     *
+     * Attaches a {@link SlowQueryLog} that records calls crossing its per-path thresholds, or detaches it
+     * when {@code null} is passed.
+     *
+     * @param slowQueryLog the log to record slow calls into, or {@code null} to turn detection off
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * 🐢 **Get Slow Query Log** 🐢
+     *
+     * @return the attached {@link SlowQueryLog}, or {@code null} if slow-query detection is off
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /**
+     * 🔁 **Set Retry Policy** 🔁
+     *
+     * Declares a {@link RetryPolicy} for a SQL path, so transient failures such as deadlocks are retried
+     * with backoff instead of surfacing to every caller. Only register policies for idempotent SQL.
+     *
+     * @param sqlPath     the path to the SQL file
+     * @param retryPolicy the policy to apply, or {@code null} to remove the current one
+     */
+    public void setRetryPolicy(String sqlPath, RetryPolicy retryPolicy) {
+        if (retryPolicy == null) {
+            retryPolicies.remove(sqlPath);
+        } else {
+            retryPolicies.put(sqlPath, retryPolicy);
+        }
+    }
+
+    /**
+     * 📡 **Set Publisher Executor** 📡
+     *
+     * Chooses the executor that runs the blocking JDBC work behind {@link #queryForPublisher(Class, Object...)}.
+     * Give it a bounded number of threads, no more than your connection pool can serve, and keep it apart from
+     * event-loop threads.
+     *
+     * @param publisherExecutor the executor to use, or {@code null} to go back to the shared default pool
+     */
+    public void setPublisherExecutor(Executor publisherExecutor) {
+        this.publisherExecutor = publisherExecutor;
+    }
+
+    /**
+     * 🌊 **Query for Stream** 🌊
+     *
+     * Executes a SQL query linked via {@code @SqlPath} and returns its rows as a lazily mapped stream over the
+     * open cursor, so rows are read one at a time instead of being collected into a list. Bean properties of type
+     * {@code InputStream} and {@code Reader} receive lazy handles on BLOB and CLOB columns, which stay valid until
+     * the stream moves past their row. The stream holds a connection until it is closed, so close it, ideally
+     * with try-with-resources.
+     *
+     * @param <T>       the type of the objects to return
+     * @param type      the class of the objects to return
+     * @param keyValues key-value pairs representing query parameters
+     * @return a stream of objects backed by the open result set
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> Stream<T> queryForStream(Class<T> type, Object... keyValues) {
+        String sqlPath = getSqlPathFromCaller();
+        return streamInternal(sqlPath, LobAwareRowMapper.newInstance(type), keyValues);
+    }
+
+    /**
+     * 🌊 **Query for Stream with Parameters** 🌊
+     *
+     * Streams the rows of a SQL query linked via {@code @SqlPath}, using a parameter object.
+     * See {@link #queryForStream(Class, Object...)}.
+     *
+     * @param <T>    the type of the objects to return
+     * @param type   the class of the objects to return
+     * @param params the parameters for the SQL query
+     * @return a stream of objects backed by the open result set
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> Stream<T> queryForStream(Class<T> type, Object params) {
+        String sqlPath = getSqlPathFromCaller();
+        return streamInternal(sqlPath, LobAwareRowMapper.newInstance(type), params);
+    }
+
+    /**
+     * 🌊 **Raw Query for Stream** 🌊
+     *
+     * Streams the rows of a raw SQL query with key-value pairs. See {@link #queryForStream(Class, Object...)}.
+     *
+     * @param <T>       the type of the objects to return
+     * @param sqlPath   the path to the SQL file
+     * @param type      the class of the objects to return
+     * @param keyValues key-value pairs representing query parameters
+     * @return a stream of objects backed by the open result set
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> Stream<T> rawQueryForStream(String sqlPath, Class<T> type, Object... keyValues) {
+        return streamInternal(sqlPath, LobAwareRowMapper.newInstance(type), keyValues);
+    }
+
+    /**
+     * 🌊 **Raw Query for Stream with Parameters** 🌊
+     *
+     * Streams the rows of a raw SQL query with a parameter object. See {@link #queryForStream(Class, Object...)}.
+     *
+     * @param <T>     the type of the objects to return
+     * @param sqlPath the path to the SQL file
+     * @param type    the class of the objects to return
+     * @param params  the parameters for the SQL query
+     * @return a stream of objects backed by the open result set
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> Stream<T> rawQueryForStream(String sqlPath, Class<T> type, Object params) {
+        return streamInternal(sqlPath, LobAwareRowMapper.newInstance(type), params);
+    }
+
+    /**
+     * 📡 **Query for Publisher** 📡
+     *
+     * Executes a SQL query linked via {@code @SqlPath} as a {@link Flow.Publisher} with backpressure. Nothing runs
+     * until a subscriber requests rows; the cursor is then read only as far as requested, on the publisher
+     * executor rather than the caller's thread. Each subscription runs the query afresh, holds a connection until
+     * it completes, fails or is cancelled, and cancelling it cancels the running statement.
+     *
+     * @param <T>       the type of the objects to publish
+     * @param type      the class of the objects to publish
+     * @param keyValues key-value pairs representing query parameters
+     * @return a cold publisher of the mapped rows
+     * @throws SqlRepositoryException if there's an issue with the SQL file or parameters
+     */
+    public <T> Flow.Publisher<T> queryForPublisher(Class<T> type, Object... keyValues) {
+        String sqlPath = getSqlPathFromCaller();
+        return publisherInternal(sqlPath, BeanPropertyRowMapper.newInstance(type), keyValues);
+    }
+
+    /**
+     * 📡 **Query for Publisher with Parameters** 📡
+     *
+     * Publishes the rows of a SQL query linked via {@code @SqlPath}, using a parameter object.
+     * See {@link #queryForPublisher(Class, Object...)}.
+     *
+     * @param <T>    the type of the objects to publish
+     * @param type   the class of the objects to publish
+     * @param params the parameters for the SQL query
+     * @return a cold publisher of the mapped rows
+     * @throws SqlRepositoryException if there's an issue with the SQL file or parameters
+     */
+    public <T> Flow.Publisher<T> queryForPublisher(Class<T> type, Object params) {
+        String sqlPath = getSqlPathFromCaller();
+        return publisherInternal(sqlPath, BeanPropertyRowMapper.newInstance(type), params);
+    }
+
+    /**
+     * 📡 **Raw Query for Publisher** 📡
+     *
+     * Publishes the rows of a raw SQL query with key-value pairs. See {@link #queryForPublisher(Class, Object...)}.
+     *
+     * @param <T>       the type of the objects to publish
+     * @param sqlPath   the path to the SQL file
+     * @param type      the class of the objects to publish
+     * @param keyValues key-value pairs representing query parameters
+     * @return a cold publisher of the mapped rows
+     * @throws SqlRepositoryException if there's an issue with the SQL file or parameters
+     */
+    public <T> Flow.Publisher<T> rawQueryForPublisher(String sqlPath, Class<T> type, Object... keyValues) {
+        return publisherInternal(sqlPath, BeanPropertyRowMapper.newInstance(type), keyValues);
+    }
+
+    /**
+     * 📡 **Raw Query for Publisher with Parameters** 📡
+     *
+     * Publishes the rows of a raw SQL query with a parameter object. See {@link #queryForPublisher(Class, Object...)}.
+     *
+     * @param <T>     the type of the objects to publish
+     * @param sqlPath the path to the SQL file
+     * @param type    the class of the objects to publish
+     * @param params  the parameters for the SQL query
+     * @return a cold publisher of the mapped rows
+     * @throws SqlRepositoryException if there's an issue with the SQL file or parameters
+     */
+    public <T> Flow.Publisher<T> rawQueryForPublisher(String sqlPath, Class<T> type, Object params) {
+        return publisherInternal(sqlPath, BeanPropertyRowMapper.newInstance(type), params);
+    }
+
+    /**
+     * 🪓 **Raw Partitioned Query** 🪓
+     *
+     * Splits a large scan into key-range slices and runs them in parallel, each on its own connection, mapping
+     * rows on the worker threads. The SQL file must restrict its rows with the scan's range placeholders,
+     * {@code :rangeStart} (inclusive) and {@code :rangeEnd} (exclusive) by default. Rows arrive in slice order
+     * when the scan is ordered, or as slices complete otherwise.
+     *
+     * Each running slice buffers at most {@link PartitionedScan#getBufferRows()} rows, so a slow consumer holds
+     * back the scan. The returned stream must be closed, ideally with try-with-resources, so running slices are
+     * cancelled and the worker threads stop when the consumer stops early.
+     *
+     * @param <T>       the type of the objects to return
+     * @param sqlPath   the path to the SQL file with range placeholders
+     * @param type      the class of the objects to return
+     * @param scan      how to slice the key range and how many slices to run at once
+     * @param keyValues key-value pairs representing query parameters shared by all slices
+     * @return a stream of objects from all slices
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> Stream<T> rawPartitionedQuery(String sqlPath, Class<T> type, PartitionedScan scan, Object... keyValues) {
+        return PartitionedQuery.stream(this, sqlPath, BeanPropertyRowMapper.newInstance(type),
+                buildSqlParameterSource(keyValues), scan);
+    }
+
+    /**
+     * 🪓 **Raw Partitioned Query with Parameters** 🪓
+     *
+     * Runs a partitioned scan like {@link #rawPartitionedQuery(String, Class, PartitionedScan, Object...)},
+     * with a parameter object shared by all slices.
+     *
+     * @param <T>     the type of the objects to return
+     * @param sqlPath the path to the SQL file with range placeholders
+     * @param type    the class of the objects to return
+     * @param scan    how to slice the key range and how many slices to run at once
+     * @param params  the parameters shared by all slices
+     * @return a stream of objects from all slices
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> Stream<T> rawPartitionedQuery(String sqlPath, Class<T> type, PartitionedScan scan, Object params) {
+        return PartitionedQuery.stream(this, sqlPath, BeanPropertyRowMapper.newInstance(type),
+                buildSqlParameterSource(params), scan);
+    }
+
+    /**
+     * 🌳 **Query One-to-Many** 🌳
+     *
+     * Executes a joined SQL query linked via {@code @SqlPath} and assembles its rows into parents with nested
+     * children in one pass, replacing one query per parent with a single join. See {@link OneToMany} for how
+     * columns are split between parent and child.
+     *
+     * @param <P>       the parent type
+     * @param <C>       the child type
+     * @param mapping   how rows fold into parents and children
+     * @param keyValues key-value pairs representing query parameters
+     * @return the parents, in order of first appearance, with their children attached
+     * @throws SqlRepositoryException if there's an issue with the SQL query, parameters or mapping
+     */
+    public <P, C> List<P> queryOneToMany(OneToMany<P, C> mapping, Object... keyValues) {
+        String sqlPath = getSqlPathFromCaller();
+        return queryOneToManyInternal(sqlPath, mapping, keyValues);
+    }
+
+    /**
+     * 🌳 **Query One-to-Many with Parameters** 🌳
+     *
+     * Assembles parents with nested children from a joined SQL query linked via {@code @SqlPath}, using a
+     * parameter object. See {@link #queryOneToMany(OneToMany, Object...)}.
+     *
+     * @param <P>     the parent type
+     * @param <C>     the child type
+     * @param mapping how rows fold into parents and children
+     * @param params  the parameters for the SQL query
+     * @return the parents, in order of first appearance, with their children attached
+     * @throws SqlRepositoryException if there's an issue with the SQL query, parameters or mapping
+     */
+    public <P, C> List<P> queryOneToMany(OneToMany<P, C> mapping, Object params) {
+        String sqlPath = getSqlPathFromCaller();
+        return queryOneToManyInternal(sqlPath, mapping, params);
+    }
+
+    /**
+     * 🌳 **Raw Query One-to-Many** 🌳
+     *
+     * Assembles parents with nested children from a raw joined SQL query with key-value pairs.
+     * See {@link #queryOneToMany(OneToMany, Object...)}.
+     *
+     * @param <P>       the parent type
+     * @param <C>       the child type
+     * @param sqlPath   the path to the SQL file
+     * @param mapping   how rows fold into parents and children
+     * @param keyValues key-value pairs representing query parameters
+     * @return the parents, in order of first appearance, with their children attached
+     * @throws SqlRepositoryException if there's an issue with the SQL query, parameters or mapping
+     */
+    public <P, C> List<P> rawQueryOneToMany(String sqlPath, OneToMany<P, C> mapping, Object... keyValues) {
+        return queryOneToManyInternal(sqlPath, mapping, keyValues);
+    }
+
+    /**
+     * 🌳 **Raw Query One-to-Many with Parameters** 🌳
+     *
+     * Assembles parents with nested children from a raw joined SQL query with a parameter object.
+     * See {@link #queryOneToMany(OneToMany, Object...)}.
+     *
+     * @param <P>     the parent type
+     * @param <C>     the child type
+     * @param sqlPath the path to the SQL file
+     * @param mapping how rows fold into parents and children
+     * @param params  the parameters for the SQL query
+     * @return the parents, in order of first appearance, with their children attached
+     * @throws SqlRepositoryException if there's an issue with the SQL query, parameters or mapping
+     */
+    public <P, C> List<P> rawQueryOneToMany(String sqlPath, OneToMany<P, C> mapping, Object params) {
+        return queryOneToManyInternal(sqlPath, mapping, params);
+    }
+
+    /**
+     * 🔗 **With Connection** 🔗
+     *
+     * Runs a unit of work on a single pinned connection. Every call made through the {@link RaveSession} reuses
+     * that connection instead of checking one out of the pool per call, and writes deferred with
+     * {@link RaveSession#deferUpdate(String, Object)} are flushed as JDBC batches when the work completes. Called
+     * from inside another unit of work on the same {@code DataSource}, it joins that unit's session.
+     *
+     * @param <R>      the result type
+     * @param callback the unit of work
+     * @return the result of the callback
+     * @throws SqlRepositoryException if the connection cannot be obtained
+     */
+    public <R> R withConnection(RaveSession.Callback<R> callback) {
+        return RaveSession.run(this, callback, false);
+    }
+
+    /**
+     * 🔒 **With Transaction** 🔒
+     *
+     * Like {@link #withConnection(RaveSession.Callback)}, but wraps the whole unit of work, including the final
+     * flush, in one transaction that commits on success and rolls back on any exception. When the connection
+     * already takes part in a Spring-managed transaction, that transaction stays in charge. A nested call joins the
+     * outer transaction, which alone commits or rolls back; if the nested call fails, the outer transaction is
+     * marked rollback-only. Retry policies are not applied inside the transaction.
+     *
+     * @param <R>      the result type
+     * @param callback the unit of work
+     * @return the result of the callback
+     * @throws SqlRepositoryException if the connection cannot be obtained, the transaction cannot complete, or the
+     *                                call is nested inside {@link #withConnection(RaveSession.Callback)}
+     */
+    public <R> R withTransaction(RaveSession.Callback<R> callback) {
+        return RaveSession.run(this, callback, true);
+    }
+
     // ====================================================================================
     //                                PRIVATE HELPER METHODS
     // ====================================================================================
 
+    /**
+     * 🎧 **getJdbcTemplate** 🎧
+     *
+     * @return the JDBC template this repository executes through
+     */
+    NamedParameterJdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
     /**
      * 🎤 **readSqlFromFile** 🎤
      *
@@ -464,27 +878,16 @@ public class RaveRepository {
      * @return the SQL string ready to be executed
      * @throws SqlRepositoryException if the SQL file is not found or cannot be read
      */
-    private String readSqlFromFile(String sqlPath) {
-        // Check if SQL is already cached
-        return sqlCache.computeIfAbsent(sqlPath, path -> {
-            try (InputStream is = getClass().getClassLoader().getResourceAsStream(path)) {
-                if (is == null) {
-                    throw new SqlRepositoryException("SQL file not found: " + path);
-                }
-                return new String(is.readAllBytes(), StandardCharsets.UTF_8);
-            } catch (FileNotFoundException e) {
-                throw new SqlRepositoryException("SQL file not found: " + path, e);
-            } catch (IOException e) {
-                throw new SqlRepositoryException("Error reading SQL file: " + path, e);
-            }
-        });
+    String readSqlFromFile(String sqlPath) {
+        return sqlCache.load(sqlPath);
     }
 
     /**
      * 🔍 **getSqlPathFromCaller** 🔍
      *
      * Retrieves the SQL path from the calling method's {@code @SqlPath} annotation.
-     * Ensures that the right track is played based on the caller's vibe.
+     * Ensures that the right track is played based on the caller's vibe. Frames are resolved by name
+     * and parameter types, so annotated methods may take any arguments.
      *
      * @return the path to the SQL file as specified in the {@code @SqlPath} annotation
      * @throws SqlRepositoryException if no {@code @SqlPath} annotation is found or retrieval fails
@@ -492,47 +895,54 @@ public class RaveRepository {
     private String getSqlPathFromCaller() {
         return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE)
                 .walk(frames -> frames
-                        .filter(frame -> {
-                            Method method;
-                            try {
-                                method = frame.getDeclaringClass().getDeclaredMethod(frame.getMethodName());
-                                return method.isAnnotationPresent(SqlPath.class);
-                            } catch (NoSuchMethodException e) {
-                                return false;
-                            }
-                        })
+                        .map(RaveRepository::findSqlPath)
+                        .filter(Objects::nonNull)
                         .findFirst()
-                        .map(frame -> {
-                            Method method;
-                            try {
-                                method = frame.getDeclaringClass().getDeclaredMethod(frame.getMethodName());
-                                SqlPath sqlPathAnnotation = method.getAnnotation(SqlPath.class);
-                                return sqlPathAnnotation.value();
-                            } catch (NoSuchMethodException e) {
-                                throw new SqlRepositoryException("Unable to retrieve SQL path from caller method.", e);
-                            }
-                        })
+                        .map(SqlPath::value)
                         .orElseThrow(() -> new SqlRepositoryException("No @SqlPath annotation found on calling method."))
                 );
     }
 
+    /**
+     * 🔎 **findSqlPath** 🔎
+     *
+     * Looks up the {@code @SqlPath} annotation of the method behind a stack frame.
+     *
+     * @param frame the stack frame to inspect
+     * @return the annotation, or {@code null} if the method is not annotated
+     */
+    private static SqlPath findSqlPath(StackWalker.StackFrame frame) {
+        try {
+            Method method = frame.getDeclaringClass()
+                    .getDeclaredMethod(frame.getMethodName(), frame.getMethodType().parameterArray());
+            return method.getAnnotation(SqlPath.class);
+        } catch (NoSuchMethodException e) {
+            // Constructors and synthetic frames have no matching declared method
+            return null;
+        }
+    }
+
     /**
      * 🎛️ **buildSqlParameterSource** 🎛️
      *
      * Constructs a {@code SqlParameterSource} from various input types, ensuring that your parameters
-     * are perfectly mixed for the SQL query.
+     * are perfectly mixed for the SQL query. {@code InputStream} and {@code Reader} values are bound as
+     * streams, so large objects flow into the database without being buffered in memory. Streams are
+     * consumed by the call that binds them, so a parameter object carrying one must not be reused.
      *
      * @param params the parameters for the SQL query
      * @return a {@code SqlParameterSource} ready to be used in the query
      * @throws IllegalArgumentException if key-values are not in pairs
      */
-    private SqlParameterSource buildSqlParameterSource(Object params) {
+    SqlParameterSource buildSqlParameterSource(Object params) {
         if (params == null) {
             return new MapSqlParameterSource();
         } else if (params instanceof SqlParameterSource) {
             return (SqlParameterSource) params;
         } else if (params instanceof Map) {
-            return new MapSqlParameterSource((Map<String, ?>) params);
+            MapSqlParameterSource paramSource = new MapSqlParameterSource();
+            ((Map<String, ?>) params).forEach((key, value) -> paramSource.addValue(key, StreamingLobValue.wrapIfStream(value)));
+            return paramSource;
         } else if (params instanceof Object[]) {
             Object[] keyValues = (Object[]) params;
             MapSqlParameterSource paramSource = new MapSqlParameterSource();
@@ -540,11 +950,16 @@ public class RaveRepository {
                 throw new IllegalArgumentException("Key-values must be in pairs.");
             }
             for (int i = 0; i < keyValues.length; i += 2) {
-                paramSource.addValue((String) keyValues[i], keyValues[i + 1]);
+                paramSource.addValue((String) keyValues[i], StreamingLobValue.wrapIfStream(keyValues[i + 1]));
             }
             return paramSource;
         } else {
-            return new BeanPropertySqlParameterSource(params);
+            return new BeanPropertySqlParameterSource(params) {
+                @Override
+                public Object getValue(String paramName) {
+                    return StreamingLobValue.wrapIfStream(super.getValue(paramName));
+                }
+            };
         }
     }
 
@@ -554,17 +969,113 @@ public class RaveRepository {
      * The core method that executes SQL queries and maps the results to objects.
      * Ensures that every query hits the dancefloor with precision.
      *
-     * @param <T>    the type of the objects to return
-     * @param sql    the SQL query to execute
-     * @param type   the class of the objects to return
-     * @param params the parameters for the SQL query
+     * @param <T>     the type of the objects to return
+     * @param sqlPath the path to the SQL file
+     * @param type    the class of the objects to return
+     * @param params  the parameters for the SQL query
+     * @return a list of objects retrieved from the database
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    private <T> List<T> queryInternal(String sqlPath, Class<T> type, Object params) {
+        return queryInternal(sqlPath, BeanPropertyRowMapper.newInstance(type), params);
+    }
+
+    /**
+     * 🎶 **queryInternal with RowMapper** 🎶
+     *
+     * Executes a SQL query and maps each row with the given, possibly precomputed, row mapper.
+     *
+     * @param <T>       the type of the objects to return
+     * @param sqlPath   the path to the SQL file
+     * @param rowMapper the mapper turning each row into an object
+     * @param params    the parameters for the SQL query
      * @return a list of objects retrieved from the database
      * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
      */
-    private <T> List<T> queryInternal(String sql, Class<T> type, Object params) {
+    <T> List<T> queryInternal(String sqlPath, RowMapper<T> rowMapper, Object params) {
+        SqlParameterSource paramSource = buildSqlParameterSource(params);
+        return withRetry(sqlPath, paramSource, () -> {
+            String sql = readSqlFromFile(sqlPath);
+            SlowQueryLog log = slowQueryLog;
+            if (log == null) {
+                return jdbcTemplate.query(sql, paramSource, rowMapper);
+            }
+            SlowQueryLog.Timing timing = log.start();
+            List<T> results = jdbcTemplate.query(sql, paramSource, timing.wrap(rowMapper));
+            finishTiming(log, sqlPath, sql, paramSource, timing, timing.rows());
+            return results;
+        });
+    }
+
+    /**
+     * 🌊 **streamInternal** 🌊
+     *
+     * Executes a SQL query and returns a lazily mapped stream over the open cursor. The stream holds a
+     * connection until it is closed, so callers must close it, ideally with try-with-resources.
+     *
+     * @param <T>       the type of the objects to return
+     * @param sqlPath   the path to the SQL file
+     * @param rowMapper the mapper turning each row into an object
+     * @param params    the parameters for the SQL query
+     * @return a stream of objects backed by the open result set
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    <T> Stream<T> streamInternal(String sqlPath, RowMapper<T> rowMapper, Object params) {
+        String sql = readSqlFromFile(sqlPath);
+        SqlParameterSource paramSource = buildSqlParameterSource(params);
+        return jdbcTemplate.queryForStream(sql, paramSource, rowMapper);
+    }
+
+    /**
+     * 🌳 **queryOneToManyInternal** 🌳
+     *
+     * Executes a joined SQL query and feeds every row through a fresh {@link OneToManyAssembler}.
+     *
+     * @param <P>     the parent type
+     * @param <C>     the child type
+     * @param sqlPath the path to the SQL file
+     * @param mapping how rows fold into parents and children
+     * @param params  the parameters for the SQL query
+     * @return the assembled parents
+     * @throws SqlRepositoryException if there's an issue with the SQL query, parameters or mapping
+     */
+    <P, C> List<P> queryOneToManyInternal(String sqlPath, OneToMany<P, C> mapping, Object params) {
+        SqlParameterSource paramSource = buildSqlParameterSource(params);
+        return withRetry(sqlPath, paramSource, () -> {
+            String sql = readSqlFromFile(sqlPath);
+            OneToManyAssembler<P, C> assembler = new OneToManyAssembler<>(mapping);
+            SlowQueryLog log = slowQueryLog;
+            SlowQueryLog.Timing timing = log == null ? null : log.start();
+            RowMapper<P> rowMapper = timing == null ? assembler : timing.wrap(assembler);
+            // ResultSet#getRow is optional for forward-only cursors, so count rows here
+            int[] rowNum = {0};
+            jdbcTemplate.query(sql, paramSource, (RowCallbackHandler) rs -> rowMapper.mapRow(rs, rowNum[0]++));
+            if (timing != null) {
+                finishTiming(log, sqlPath, sql, paramSource, timing, timing.rows());
+            }
+            return assembler.getParents();
+        });
+    }
+
+    /**
+     * 📡 **publisherInternal** 📡
+     *
+     * Resolves the SQL and parameters up front and wraps them in a {@link QueryPublisher} running on the
+     * configured publisher executor.
+     *
+     * @param <T>       the type of the objects to publish
+     * @param sqlPath   the path to the SQL file
+     * @param rowMapper the mapper turning each row into an object
+     * @param params    the parameters for the SQL query
+     * @return a cold publisher of the mapped rows
+     * @throws SqlRepositoryException if there's an issue with the SQL file or parameters
+     */
+    <T> Flow.Publisher<T> publisherInternal(String sqlPath, RowMapper<T> rowMapper, Object params) {
+        String sql = readSqlFromFile(sqlPath);
         SqlParameterSource paramSource = buildSqlParameterSource(params);
-        RowMapper<T> rowMapper = BeanPropertyRowMapper.newInstance(type);
-        return jdbcTemplate.query(sql, paramSource, rowMapper);
+        Executor executor = publisherExecutor;
+        return new QueryPublisher<>(jdbcTemplate.getJdbcTemplate(), sql, paramSource, rowMapper,
+                executor != null ? executor : QueryPublisher.defaultExecutor());
     }
 
     /**
@@ -572,17 +1083,42 @@ public class RaveRepository {
      *
      * Executes a SQL query to retrieve a single object, ensuring that the spotlight hits the right target.
      *
-     * @param <T>    the type of the object to return
-     * @param sql    the SQL query to execute
-     * @param type   the class of the object to return
-     * @param params the parameters for the SQL query
+     * @param <T>     the type of the object to return
+     * @param sqlPath the path to the SQL file
+     * @param type    the class of the object to return
+     * @param params  the parameters for the SQL query
+     * @return the single object retrieved from the database
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    private <T> T queryForObjectInternal(String sqlPath, Class<T> type, Object params) {
+        return queryForObjectInternal(sqlPath, BeanPropertyRowMapper.newInstance(type), params);
+    }
+
+    /**
+     * 🎯 **queryForObjectInternal with RowMapper** 🎯
+     *
+     * Executes a SQL query to retrieve a single object mapped with the given row mapper.
+     *
+     * @param <T>       the type of the object to return
+     * @param sqlPath   the path to the SQL file
+     * @param rowMapper the mapper turning the row into an object
+     * @param params    the parameters for the SQL query
      * @return the single object retrieved from the database
      * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
      */
-    private <T> T queryForObjectInternal(String sql, Class<T> type, Object params) {
+    <T> T queryForObjectInternal(String sqlPath, RowMapper<T> rowMapper, Object params) {
         SqlParameterSource paramSource = buildSqlParameterSource(params);
-        RowMapper<T> rowMapper = BeanPropertyRowMapper.newInstance(type);
-        return jdbcTemplate.queryForObject(sql, paramSource, rowMapper);
+        return withRetry(sqlPath, paramSource, () -> {
+            String sql = readSqlFromFile(sqlPath);
+            SlowQueryLog log = slowQueryLog;
+            if (log == null) {
+                return jdbcTemplate.queryForObject(sql, paramSource, rowMapper);
+            }
+            SlowQueryLog.Timing timing = log.start();
+            T result = jdbcTemplate.queryForObject(sql, paramSource, timing.wrap(rowMapper));
+            finishTiming(log, sqlPath, sql, paramSource, timing, timing.rows());
+            return result;
+        });
     }
 
     /**
@@ -591,13 +1127,128 @@ public class RaveRepository {
      * Executes an update operation with the given SQL and parameters, ensuring that your data stays in sync
      * with the high-energy flow of your application.
      *
-     * @param sql    the SQL update query to execute
-     * @param params the parameters for the update query
+     * @param sqlPath the path to the SQL file
+     * @param params  the parameters for the update query
      * @return the number of rows affected by the update
      * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
      */
-    private int updateInternal(String sql, Object params) {
+    int updateInternal(String sqlPath, Object params) {
         SqlParameterSource paramSource = buildSqlParameterSource(params);
-        return jdbcTemplate.update(sql, paramSource);
+        return withRetry(sqlPath, paramSource, () -> {
+            String sql = readSqlFromFile(sqlPath);
+            SlowQueryLog log = slowQueryLog;
+            if (log == null) {
+                return jdbcTemplate.update(sql, paramSource);
+            }
+            SlowQueryLog.Timing timing = log.start();
+            int rowsAffected = jdbcTemplate.update(sql, paramSource);
+            finishTiming(log, sqlPath, sql, paramSource, timing, rowsAffected);
+            return rowsAffected;
+        });
+    }
+
+    /**
+     * 🎉 **batchUpdateInternal** 🎉
+     *
+     * Executes a batch update, turning each parameter object into its own {@code SqlParameterSource}.
+     *
+     * @param sqlPath      the path to the SQL file
+     * @param paramObjects the parameter objects, one per statement in the batch
+     * @return an array indicating the number of rows affected for each update
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    int[] batchUpdateInternal(String sqlPath, List<?> paramObjects) {
+        SqlParameterSource[] batchParams = paramObjects.stream()
+                .map(this::buildSqlParameterSource)
+                .toArray(SqlParameterSource[]::new);
+        return withRetry(sqlPath, batchParams, () -> {
+            String sql = readSqlFromFile(sqlPath);
+            SlowQueryLog log = slowQueryLog;
+            if (log == null || batchParams.length == 0) {
+                return jdbcTemplate.batchUpdate(sql, batchParams);
+            }
+            SlowQueryLog.Timing timing = log.start();
+            int[] rowsAffected = jdbcTemplate.batchUpdate(sql, batchParams);
+            finishTiming(log, sqlPath, sql, batchParams[0], timing, Arrays.stream(rowsAffected).filter(n -> n > 0).sum());
+            return rowsAffected;
+        });
+    }
+
+    /**
+     * 🔒 **inTransaction** 🔒
+     *
+     * @return whether the current call runs inside a transaction, either managed by this repository or by Spring
+     */
+    boolean inTransaction() {
+        return transactional || TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * 🔁 **withRetry** 🔁
+     *
+     * Runs a call under the retry policy registered for its SQL path, if any. The call runs exactly once inside
+     * a transaction, which a serialization failure or deadlock has already aborted or rolled back, and when its
+     * parameters carry streams, which the failed attempt has already consumed.
+     *
+     * @param <R>         the result type
+     * @param sqlPath     the path to the SQL file
+     * @param paramSource the parameters the call binds
+     * @param call        the call to run
+     * @return the result of the call
+     */
+    private <R> R withRetry(String sqlPath, SqlParameterSource paramSource, Supplier<R> call) {
+        return withRetry(sqlPath, new SqlParameterSource[]{paramSource}, call);
+    }
+
+    /**
+     * 🔁 **withRetry for batches** 🔁
+     *
+     * Runs a batch call under the retry policy of its SQL path, like
+     * {@link #withRetry(String, SqlParameterSource, Supplier)}.
+     *
+     * @param <R>          the result type
+     * @param sqlPath      the path to the SQL file
+     * @param paramSources the parameters of every statement in the batch
+     * @param call         the call to run
+     * @return the result of the call
+     */
+    private <R> R withRetry(String sqlPath, SqlParameterSource[] paramSources, Supplier<R> call) {
+        RetryPolicy retryPolicy = retryPolicies.get(sqlPath);
+        if (retryPolicy == null || inTransaction()) {
+            return call.get();
+        }
+        // Scanning the parameters for streams reflects over beans, so it waits until a retry is on the table
+        return retryPolicy.execute(sqlPath, call,
+                () -> Arrays.stream(paramSources).noneMatch(StreamingLobValue::containsStream));
+    }
+
+    /**
+     * 🐢 **finishTiming** 🐢
+     *
+     * Hands a finished call to the slow-query log and, the first time a path turns out slow, captures its
+     * {@code EXPLAIN} plan with the same parameters. Plan capture never fails the call itself, and is left to a
+     * later call when this one runs inside a transaction or carries stream parameters.
+     *
+     * @param log         the slow-query log timing the call
+     * @param sqlPath     the path to the SQL file
+     * @param sql         the SQL that was executed
+     * @param paramSource the parameters the call ran with
+     * @param timing      the timing started for the call
+     * @param rowCount    rows mapped or affected
+     */
+    private void finishTiming(SlowQueryLog log, String sqlPath, String sql, SqlParameterSource paramSource,
+                              SlowQueryLog.Timing timing, long rowCount) {
+        // Checked only once the call is known to be slow, since scanning bean parameters for streams reflects
+        if (!log.finish(sqlPath, paramSource, timing, rowCount,
+                () -> !inTransaction() && !StreamingLobValue.containsStream(paramSource))) {
+            return;
+        }
+        String plan;
+        try {
+            plan = String.join("\n", jdbcTemplate.query("EXPLAIN " + sql, paramSource, (rs, rowNum) -> rs.getString(1)));
+        } catch (RuntimeException e) {
+            plan = "EXPLAIN failed: " + e.getMessage();
+        }
+        log.storePlan(sqlPath, plan);
     }
 }
@@ -0,0 +1,562 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepository.SqlRepositoryException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🔗 **RaveSession** 🔗
+ *
+ * The synchronous query and update surface of a {@link RaveRepository}, pinned to a single connection for the
+ * duration of a unit of work and obtained through {@link RaveRepository#withConnection(Callback)} or
+ * {@link RaveRepository#withTransaction(Callback)}. Calls share one connection instead of checking one out of the
+ * pool per call. Streams, publishers, partitioned scans and generated repositories are deliberately not offered
+ * here: they would touch the pinned, non-thread-safe connection from other threads or after the unit of work ends.
+ *
+ * Writes passed to {@link #deferUpdate(String, Object)} are queued and sent as JDBC batches on {@link #flush()},
+ * which runs automatically when the unit of work completes. Deferred writes are not visible to queries in the
+ * same session until flushed. A session must not be used after its unit of work has returned.
+ *
+ * A unit of work started on the same thread and {@code DataSource} while another is running joins the outer
+ * session: it shares its connection, and only the outer unit of work commits or rolls back. If a joined unit of
+ * work fails, its deferred writes are dropped and a transactional outer unit of work rolls back, even when it
+ * catches the failure.
+ */
+public class RaveSession {
+
+    /**
+     * 🎛️ **RaveSession.Callback** 🎛️
+     *
+     * A unit of work executed against a {@link RaveSession}.
+     *
+     * @param <R> the result type
+     */
+    @FunctionalInterface
+    public interface Callback<R> {
+
+        /**
+         * @param session the session pinned to the unit of work's connection
+         * @return the result of the unit of work
+         */
+        R doInSession(RaveSession session);
+    }
+
+    /**
+     * A write waiting for the next flush.
+     */
+    private static final class DeferredUpdate {
+        private final String sqlPath;
+        private final Object params;
+
+        DeferredUpdate(String sqlPath, Object params) {
+            this.sqlPath = sqlPath;
+            this.params = params;
+        }
+    }
+
+    /**
+     * Sessions running on the current thread, by the {@code DataSource} their connection came from.
+     */
+    private static final ThreadLocal<Map<DataSource, RaveSession>> ACTIVE_SESSIONS = new ThreadLocal<>();
+
+    private final RaveRepository repository;
+    private final boolean transactional;
+    private final List<DeferredUpdate> deferredUpdates = new ArrayList<>();
+
+    /**
+     * Set when a nested unit of work fails, so the outer unit of work rolls back instead of committing.
+     */
+    private boolean rollbackOnly;
+
+    private RaveSession(RaveRepository parent, PinnedDataSource dataSource, boolean transactional) {
+        this.repository = new RaveRepository(parent, pinnedTemplate(parent.getJdbcTemplate(), dataSource), transactional);
+        this.transactional = transactional;
+    }
+
+    /**
+     * 🎵 **Query** 🎵
+     *
+     * Runs {@link RaveRepository#query(Class, Object...)} on the session's connection.
+     *
+     * @param <T>       the type of the objects to return
+     * @param type      the class of the objects to return
+     * @param keyValues key-value pairs representing query parameters
+     * @return a list of objects retrieved from the database
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> List<T> query(Class<T> type, Object... keyValues) {
+        return repository.query(type, keyValues);
+    }
+
+    /**
+     * 🎵 **Query with Parameters** 🎵
+     *
+     * Runs {@link RaveRepository#query(Class, Object)} on the session's connection.
+     *
+     * @param <T>    the type of the objects to return
+     * @param type   the class of the objects to return
+     * @param params the parameters for the SQL query
+     * @return a list of objects retrieved from the database
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> List<T> query(Class<T> type, Object params) {
+        return repository.query(type, params);
+    }
+
+    /**
+     * 🎵 **Raw Query** 🎵
+     *
+     * Runs {@link RaveRepository#rawQuery(String, Class, Object...)} on the session's connection.
+     *
+     * @param <T>       the type of the objects to return
+     * @param sqlPath   the path to the SQL file
+     * @param type      the class of the objects to return
+     * @param keyValues key-value pairs representing query parameters
+     * @return a list of objects retrieved from the database
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> List<T> rawQuery(String sqlPath, Class<T> type, Object... keyValues) {
+        return repository.rawQuery(sqlPath, type, keyValues);
+    }
+
+    /**
+     * 🎵 **Raw Query with Parameters** 🎵
+     *
+     * Runs {@link RaveRepository#rawQuery(String, Class, Object)} on the session's connection.
+     *
+     * @param <T>     the type of the objects to return
+     * @param sqlPath the path to the SQL file
+     * @param type    the class of the objects to return
+     * @param params  the parameters for the SQL query
+     * @return a list of objects retrieved from the database
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> List<T> rawQuery(String sqlPath, Class<T> type, Object params) {
+        return repository.rawQuery(sqlPath, type, params);
+    }
+
+    /**
+     * 🎯 **Query for Object** 🎯
+     *
+     * Runs {@link RaveRepository#queryForObject(Class, Object...)} on the session's connection.
+     *
+     * @param <T>       the type of the object to return
+     * @param type      the class of the object to return
+     * @param keyValues key-value pairs representing query parameters
+     * @return the single object retrieved from the database
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> T queryForObject(Class<T> type, Object... keyValues) {
+        return repository.queryForObject(type, keyValues);
+    }
+
+    /**
+     * 🎯 **Query for Object with Parameters** 🎯
+     *
+     * Runs {@link RaveRepository#queryForObject(Class, Object)} on the session's connection.
+     *
+     * @param <T>    the type of the object to return
+     * @param type   the class of the object to return
+     * @param params the parameters for the SQL query
+     * @return the single object retrieved from the database
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> T queryForObject(Class<T> type, Object params) {
+        return repository.queryForObject(type, params);
+    }
+
+    /**
+     * 🎯 **Raw Query for Object** 🎯
+     *
+     * Runs {@link RaveRepository#rawQueryForObject(String, Class, Object...)} on the session's connection.
+     *
+     * @param <T>       the type of the object to return
+     * @param sqlPath   the path to the SQL file
+     * @param type      the class of the object to return
+     * @param keyValues key-value pairs representing query parameters
+     * @return the single object retrieved from the database
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> T rawQueryForObject(String sqlPath, Class<T> type, Object... keyValues) {
+        return repository.rawQueryForObject(sqlPath, type, keyValues);
+    }
+
+    /**
+     * 🎯 **Raw Query for Object with Parameters** 🎯
+     *
+     * Runs {@link RaveRepository#rawQueryForObject(String, Class, Object)} on the session's connection.
+     *
+     * @param <T>     the type of the object to return
+     * @param sqlPath the path to the SQL file
+     * @param type    the class of the object to return
+     * @param params  the parameters for the SQL query
+     * @return the single object retrieved from the database
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public <T> T rawQueryForObject(String sqlPath, Class<T> type, Object params) {
+        return repository.rawQueryForObject(sqlPath, type, params);
+    }
+
+    /**
+     * 🌳 **Query One-to-Many** 🌳
+     *
+     * Runs {@link RaveRepository#queryOneToMany(OneToMany, Object...)} on the session's connection.
+     *
+     * @param <P>       the parent type
+     * @param <C>       the child type
+     * @param mapping   how rows fold into parents and children
+     * @param keyValues key-value pairs representing query parameters
+     * @return the parents, in order of first appearance, with their children attached
+     * @throws SqlRepositoryException if there's an issue with the SQL query, parameters or mapping
+     */
+    public <P, C> List<P> queryOneToMany(OneToMany<P, C> mapping, Object... keyValues) {
+        return repository.queryOneToMany(mapping, keyValues);
+    }
+
+    /**
+     * 🌳 **Raw Query One-to-Many** 🌳
+     *
+     * Runs {@link RaveRepository#rawQueryOneToMany(String, OneToMany, Object...)} on the session's connection.
+     *
+     * @param <P>       the parent type
+     * @param <C>       the child type
+     * @param sqlPath   the path to the SQL file
+     * @param mapping   how rows fold into parents and children
+     * @param keyValues key-value pairs representing query parameters
+     * @return the parents, in order of first appearance, with their children attached
+     * @throws SqlRepositoryException if there's an issue with the SQL query, parameters or mapping
+     */
+    public <P, C> List<P> rawQueryOneToMany(String sqlPath, OneToMany<P, C> mapping, Object... keyValues) {
+        return repository.rawQueryOneToMany(sqlPath, mapping, keyValues);
+    }
+
+    /**
+     * 🔄 **Update** 🔄
+     *
+     * Runs {@link RaveRepository#update(Object...)} on the session's connection.
+     *
+     * @param keyValues key-value pairs representing update parameters
+     * @return the number of rows affected by the update
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public int update(Object... keyValues) {
+        return repository.update(keyValues);
+    }
+
+    /**
+     * 🔄 **Update with Parameters** 🔄
+     *
+     * Runs {@link RaveRepository#update(Object)} on the session's connection.
+     *
+     * @param params the parameters for the update query
+     * @return the number of rows affected by the update
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public int update(Object params) {
+        return repository.update(params);
+    }
+
+    /**
+     * 🔄 **Raw Update** 🔄
+     *
+     * Runs {@link RaveRepository#rawUpdate(String, Object...)} on the session's connection.
+     *
+     * @param sqlPath   the path to the SQL file
+     * @param keyValues key-value pairs representing update parameters
+     * @return the number of rows affected by the update
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public int rawUpdate(String sqlPath, Object... keyValues) {
+        return repository.rawUpdate(sqlPath, keyValues);
+    }
+
+    /**
+     * 🔄 **Raw Update with Parameters** 🔄
+     *
+     * Runs {@link RaveRepository#rawUpdate(String, Object)} on the session's connection.
+     *
+     * @param sqlPath the path to the SQL file
+     * @param params  the parameters for the update query
+     * @return the number of rows affected by the update
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public int rawUpdate(String sqlPath, Object params) {
+        return repository.rawUpdate(sqlPath, params);
+    }
+
+    /**
+     * 🎉 **Batch Update** 🎉
+     *
+     * Runs {@link RaveRepository#batchUpdate(List)} on the session's connection.
+     *
+     * @param paramObjects the parameter objects, one per statement in the batch
+     * @return an array indicating the number of rows affected for each update
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public int[] batchUpdate(List<?> paramObjects) {
+        return repository.batchUpdate(paramObjects);
+    }
+
+    /**
+     * 🎉 **Raw Batch Update** 🎉
+     *
+     * Runs {@link RaveRepository#rawBatchUpdate(String, List)} on the session's connection.
+     *
+     * @param sqlPath      the path to the SQL file
+     * @param paramObjects the parameter objects, one per statement in the batch
+     * @return an array indicating the number of rows affected for each update
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public int[] rawBatchUpdate(String sqlPath, List<?> paramObjects) {
+        return repository.rawBatchUpdate(sqlPath, paramObjects);
+    }
+
+    /**
+     * ⏳ **Defer Update** ⏳
+     *
+     * Queues an update with key-value parameters until the next {@link #flush()}.
+     *
+     * @param sqlPath   the path to the SQL file
+     * @param keyValues key-value pairs representing update parameters
+     * @throws IllegalArgumentException if key-values are not in pairs
+     */
+    public void deferUpdate(String sqlPath, Object... keyValues) {
+        if (keyValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Key-values must be in pairs.");
+        }
+        deferredUpdates.add(new DeferredUpdate(sqlPath, keyValues));
+    }
+
+    /**
+     * ⏳ **Defer Update with Parameters** ⏳
+     *
+     * Queues an update with a parameter object until the next {@link #flush()}.
+     *
+     * @param sqlPath the path to the SQL file
+     * @param params  the parameters for the update query
+     */
+    public void deferUpdate(String sqlPath, Object params) {
+        deferredUpdates.add(new DeferredUpdate(sqlPath, params));
+    }
+
+    /**
+     * 🚽 **Flush** 🚽
+     *
+     * Sends all deferred updates, in the order they were queued. Consecutive updates of the same SQL path are
+     * grouped into a single JDBC batch.
+     *
+     * @return the number of rows affected by each deferred update, in queue order
+     * @throws SqlRepositoryException if there's an issue with the SQL query or parameters
+     */
+    public int[] flush() {
+        List<int[]> batches = new ArrayList<>();
+        int total = 0;
+        int start = 0;
+        while (start < deferredUpdates.size()) {
+            String sqlPath = deferredUpdates.get(start).sqlPath;
+            int end = start;
+            List<Object> batch = new ArrayList<>();
+            while (end < deferredUpdates.size() && deferredUpdates.get(end).sqlPath.equals(sqlPath)) {
+                batch.add(deferredUpdates.get(end).params);
+                end++;
+            }
+            int[] rowsAffected = repository.batchUpdateInternal(sqlPath, batch);
+            batches.add(rowsAffected);
+            total += rowsAffected.length;
+            start = end;
+        }
+        deferredUpdates.clear();
+
+        int[] result = new int[total];
+        int offset = 0;
+        for (int[] rowsAffected : batches) {
+            System.arraycopy(rowsAffected, 0, result, offset, rowsAffected.length);
+            offset += rowsAffected.length;
+        }
+        return result;
+    }
+
+    /**
+     * 📋 **Get Deferred Update Count** 📋
+     *
+     * @return the number of updates waiting for the next flush
+     */
+    public int getDeferredUpdateCount() {
+        return deferredUpdates.size();
+    }
+
+    /**
+     * Runs a unit of work on a connection pinned for its whole duration, or joins the session already running
+     * on this thread for the same {@code DataSource}.
+     *
+     * @param parent        the repository the session derives from
+     * @param callback      the unit of work
+     * @param transactional whether to wrap the unit of work in a transaction
+     * @return the result of the callback
+     * @throws SqlRepositoryException if a transaction is requested inside a non-transactional session
+     */
+    static <R> R run(RaveRepository parent, Callback<R> callback, boolean transactional) {
+        DataSource targetDataSource = parent.getJdbcTemplate().getJdbcTemplate().getDataSource();
+        if (targetDataSource == null) {
+            throw new SqlRepositoryException("No DataSource configured for the JDBC template.");
+        }
+        Map<DataSource, RaveSession> activeSessions = ACTIVE_SESSIONS.get();
+        RaveSession outer = activeSessions == null ? null : activeSessions.get(targetDataSource);
+        if (outer != null) {
+            if (transactional && !outer.transactional) {
+                throw new SqlRepositoryException("Cannot start a transaction inside a session opened by withConnection.");
+            }
+            // The outer unit of work owns the connection, and commits or rolls back the inner work with its own
+            return outer.join(callback);
+        }
+        if (activeSessions == null) {
+            activeSessions = new HashMap<>();
+            ACTIVE_SESSIONS.set(activeSessions);
+        }
+
+        Connection connection = DataSourceUtils.getConnection(targetDataSource);
+        PinnedDataSource pinned = new PinnedDataSource(connection);
+        try {
+            boolean manageTransaction = transactional
+                    && !DataSourceUtils.isConnectionTransactional(connection, targetDataSource);
+            RaveSession session = new RaveSession(parent, pinned, transactional);
+            activeSessions.put(targetDataSource, session);
+            if (!manageTransaction) {
+                R result = callback.doInSession(session);
+                session.checkNotRollbackOnly();
+                session.flush();
+                return result;
+            }
+            return runInTransaction(session, connection, callback);
+        } finally {
+            activeSessions.remove(targetDataSource);
+            if (activeSessions.isEmpty()) {
+                ACTIVE_SESSIONS.remove();
+            }
+            pinned.release();
+            DataSourceUtils.releaseConnection(connection, targetDataSource);
+        }
+    }
+
+    /**
+     * Runs a nested unit of work inside this session. When it fails, the deferred writes it queued are dropped
+     * and a transactional session is marked rollback-only, so the outer unit of work cannot commit its
+     * immediate writes.
+     */
+    private <R> R join(Callback<R> callback) {
+        int queued = deferredUpdates.size();
+        try {
+            R result = callback.doInSession(this);
+            flush();
+            return result;
+        } catch (RuntimeException | Error e) {
+            // The nested unit may have flushed the queue itself
+            if (deferredUpdates.size() > queued) {
+                deferredUpdates.subList(queued, deferredUpdates.size()).clear();
+            }
+            if (transactional) {
+                rollbackOnly = true;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @throws SqlRepositoryException if a nested unit of work failed, so the transaction must roll back
+     */
+    private void checkNotRollbackOnly() {
+        if (rollbackOnly) {
+            throw new SqlRepositoryException("Transaction rolled back because a nested unit of work failed.");
+        }
+    }
+
+    /**
+     * Runs the unit of work with auto-commit off, committing on success and rolling back on failure.
+     */
+    private static <R> R runInTransaction(RaveSession session, Connection connection, Callback<R> callback) {
+        boolean autoCommit;
+        try {
+            autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+        } catch (SQLException e) {
+            throw new SqlRepositoryException("Failed to begin RaveSession transaction.", e);
+        }
+        try {
+            R result = callback.doInSession(session);
+            session.checkNotRollbackOnly();
+            session.flush();
+            connection.commit();
+            return result;
+        } catch (SQLException e) {
+            rollbackQuietly(connection, e);
+            throw new SqlRepositoryException("Failed to commit RaveSession transaction.", e);
+        } catch (RuntimeException | Error e) {
+            rollbackQuietly(connection, e);
+            throw e;
+        } finally {
+            if (autoCommit) {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                    // The connection goes back to the pool, which resets or discards it
+                }
+            }
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection, Throwable failure) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Creates a template over the pinned connection that keeps the parent template's fetch settings.
+     */
+    private static NamedParameterJdbcTemplate pinnedTemplate(NamedParameterJdbcTemplate parent, DataSource dataSource) {
+        JdbcTemplate parentJdbc = parent.getJdbcTemplate();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.setFetchSize(parentJdbc.getFetchSize());
+        jdbc.setMaxRows(parentJdbc.getMaxRows());
+        jdbc.setQueryTimeout(parentJdbc.getQueryTimeout());
+        return new NamedParameterJdbcTemplate(jdbc);
+    }
+
+    /**
+     * Hands out the pinned connection with {@code close()} suppressed, and refuses to once the unit of work
+     * has returned so a leaked session can never touch a connection that went back to the pool.
+     */
+    private static final class PinnedDataSource extends SingleConnectionDataSource {
+        private volatile boolean released;
+
+        PinnedDataSource(Connection connection) {
+            super(connection, true);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (released) {
+                throw new SQLException("RaveSession has already ended.");
+            }
+            return super.getConnection();
+        }
+
+        void release() {
+            released = true;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepository.SqlRepositoryException;
+import com.ravesql.annotation.SqlParam;
+import com.ravesql.annotation.SqlPath;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.beans.PropertyDescriptor;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 🪩 **RepositoryInvocationHandler** 🪩
+ *
+ * Backs the proxies created by {@link RaveRepository#createRepository(Class)}. Every interface method is
+ * analysed once when the proxy is built: its SQL file is loaded and classified as query or update, parameter
+ * names are resolved, and a row mapper is chosen from the return type. The result is a dispatch table from
+ * {@link Method} to a ready-to-run {@link MethodInvoker}, so calls never touch reflection metadata again.
+ */
+class RepositoryInvocationHandler implements InvocationHandler {
+
+    /**
+     * A precomputed handler for a single interface method.
+     */
+    @FunctionalInterface
+    interface MethodInvoker {
+        Object invoke(Object proxy, Object[] args) throws Throwable;
+    }
+
+    /**
+     * Builds the parameter object passed to {@link RaveRepository} from the method arguments.
+     */
+    @FunctionalInterface
+    private interface ParameterBinder {
+        Object bind(Object[] args);
+    }
+
+    private final Class<?> repositoryInterface;
+    private final Map<Method, MethodInvoker> invokers = new HashMap<>();
+
+    /**
+     * Analyses every method of the interface and builds the dispatch table.
+     *
+     * @param repository          the repository executing the SQL
+     * @param repositoryInterface the interface to implement
+     * @throws SqlRepositoryException if any method cannot be implemented
+     */
+    RepositoryInvocationHandler(RaveRepository repository, Class<?> repositoryInterface) {
+        this.repositoryInterface = repositoryInterface;
+        for (Method method : repositoryInterface.getMethods()) {
+            if (method.getDeclaringClass() == Object.class || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            invokers.put(method, method.isDefault()
+                    ? defaultMethodInvoker(method)
+                    : sqlMethodInvoker(repository, method));
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        MethodInvoker invoker = invokers.get(method);
+        if (invoker != null) {
+            return invoker.invoke(proxy, args);
+        }
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "RaveRepository proxy for " + repositoryInterface.getName();
+            default:
+                throw new SqlRepositoryException("Unsupported method: " + method);
+        }
+    }
+
+    /**
+     * Creates an invoker that runs the interface's own default method implementation.
+     */
+    private MethodInvoker defaultMethodInvoker(Method method) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup())
+                    .unreflectSpecial(method, method.getDeclaringClass());
+        } catch (IllegalAccessException e) {
+            throw new SqlRepositoryException("Unable to access default method: " + method, e);
+        }
+        return (proxy, args) -> handle.bindTo(proxy).invokeWithArguments(args == null ? new Object[0] : args);
+    }
+
+    /**
+     * Creates an invoker that executes the SQL file named by the method's {@code @SqlPath} annotation.
+     */
+    private MethodInvoker sqlMethodInvoker(RaveRepository repository, Method method) {
+        SqlPath sqlPathAnnotation = method.getAnnotation(SqlPath.class);
+        if (sqlPathAnnotation == null) {
+            throw new SqlRepositoryException("No @SqlPath annotation found on repository method: " + method);
+        }
+        String sqlPath = sqlPathAnnotation.value();
+        String sql = repository.readSqlFromFile(sqlPath);
+        boolean query = isQuery(sql);
+        Class<?> returnType = method.getReturnType();
+
+        if (returnType == int[].class) {
+            if (method.getParameterCount() != 1 || !List.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                throw new SqlRepositoryException("Batch method must take a single List of parameter objects: " + method);
+            }
+            return (proxy, args) -> repository.batchUpdateInternal(sqlPath, (List<?>) args[0]);
+        }
+
+        ParameterBinder binder = parameterBinder(method, sql);
+        if (!query) {
+            if (returnType == void.class || returnType == Void.class) {
+                return (proxy, args) -> {
+                    repository.updateInternal(sqlPath, binder.bind(args));
+                    return null;
+                };
+            }
+            if (returnType == int.class || returnType == Integer.class) {
+                return (proxy, args) -> repository.updateInternal(sqlPath, binder.bind(args));
+            }
+            if (returnType == long.class || returnType == Long.class) {
+                return (proxy, args) -> (long) repository.updateInternal(sqlPath, binder.bind(args));
+            }
+            throw new SqlRepositoryException("Update method must return int, long or void: " + method);
+        }
+
+        if (returnType == List.class || returnType == Collection.class || returnType == Iterable.class) {
+            RowMapper<?> rowMapper = rowMapperFor(elementType(method));
+            return (proxy, args) -> repository.queryInternal(sqlPath, rowMapper, binder.bind(args));
+        }
+        if (returnType == Stream.class) {
+            Class<?> elementType = elementType(method);
+            RowMapper<?> rowMapper = BeanUtils.isSimpleProperty(elementType)
+                    ? SingleColumnRowMapper.newInstance(elementType)
+                    : LobAwareRowMapper.newInstance(elementType);
+            return (proxy, args) -> repository.streamInternal(sqlPath, rowMapper, binder.bind(args));
+        }
+        if (returnType == Optional.class) {
+            RowMapper<?> rowMapper = rowMapperFor(elementType(method));
+            return (proxy, args) -> Optional.ofNullable(
+                    DataAccessUtils.singleResult(repository.queryInternal(sqlPath, rowMapper, binder.bind(args))));
+        }
+        if (returnType == void.class) {
+            throw new SqlRepositoryException("Query method must return a value: " + method);
+        }
+        RowMapper<?> rowMapper = rowMapperFor(returnType);
+        return (proxy, args) -> repository.queryForObjectInternal(sqlPath, rowMapper, binder.bind(args));
+    }
+
+    /**
+     * Resolves how the method arguments turn into SQL parameters. A single argument without {@code @SqlParam}
+     * is bound by name when its name is a placeholder of the SQL, and as a whole parameter object otherwise.
+     *
+     * @throws SqlRepositoryException if a single argument can be bound neither way
+     */
+    private static ParameterBinder parameterBinder(Method method, String sql) {
+        Parameter[] parameters = method.getParameters();
+        if (parameters.length == 0) {
+            return args -> null;
+        }
+        if (parameters.length == 1 && !parameters[0].isAnnotationPresent(SqlParam.class)) {
+            Parameter parameter = parameters[0];
+            Class<?> type = parameter.getType();
+            List<String> placeholders = placeholders(sql);
+            boolean boundByName = parameter.isNamePresent() && placeholders.contains(parameter.getName());
+            if (!boundByName && isParameterObject(type)) {
+                if (!Map.class.isAssignableFrom(type) && !SqlParameterSource.class.isAssignableFrom(type)) {
+                    for (String placeholder : placeholders) {
+                        PropertyDescriptor property = BeanUtils.getPropertyDescriptor(type, placeholder);
+                        if (property == null || property.getReadMethod() == null) {
+                            throw new SqlRepositoryException("Cannot bind :" + placeholder + " of " + method + "; "
+                                    + type.getName() + " has no such property. Name the argument after the "
+                                    + "placeholder with @SqlParam or -parameters.");
+                        }
+                    }
+                }
+                return args -> args[0];
+            }
+        }
+
+        String[] names = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            SqlParam sqlParam = parameters[i].getAnnotation(SqlParam.class);
+            if (sqlParam != null) {
+                names[i] = sqlParam.value();
+            } else if (parameters[i].isNamePresent()) {
+                names[i] = parameters[i].getName();
+            } else {
+                throw new SqlRepositoryException("Cannot resolve SQL parameter name for argument " + i + " of "
+                        + method + "; annotate it with @SqlParam or compile with -parameters.");
+            }
+        }
+        return args -> {
+            MapSqlParameterSource paramSource = new MapSqlParameterSource();
+            for (int i = 0; i < names.length; i++) {
+                paramSource.addValue(names[i], StreamingLobValue.wrapIfStream(args[i]));
+            }
+            return paramSource;
+        };
+    }
+
+    /**
+     * Lists the named placeholders of a SQL script, in order of appearance.
+     */
+    private static List<String> placeholders(String sql) {
+        List<String> names = new ArrayList<>();
+        for (SqlParameter parameter : NamedParameterUtils.buildSqlParameterList(
+                NamedParameterUtils.parseSqlStatement(sql), new EmptySqlParameterSource())) {
+            names.add(parameter.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Tells whether an argument type is a whole parameter object rather than a single value.
+     */
+    private static boolean isParameterObject(Class<?> type) {
+        return Map.class.isAssignableFrom(type)
+                || SqlParameterSource.class.isAssignableFrom(type)
+                || !(BeanUtils.isSimpleProperty(type) || Collection.class.isAssignableFrom(type)
+                || InputStream.class.isAssignableFrom(type) || Reader.class.isAssignableFrom(type));
+    }
+
+    /**
+     * Chooses a row mapper for the given result type: single-column mapping for simple values,
+     * bean property mapping for everything else.
+     */
+    private static RowMapper<?> rowMapperFor(Class<?> type) {
+        if (BeanUtils.isSimpleProperty(type)) {
+            return SingleColumnRowMapper.newInstance(type);
+        }
+        return BeanPropertyRowMapper.newInstance(type);
+    }
+
+    /**
+     * Extracts the element type from a generic return type such as {@code List<Track>}.
+     */
+    private static Class<?> elementType(Method method) {
+        Type genericType = method.getGenericReturnType();
+        if (genericType instanceof ParameterizedType) {
+            Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            if (argument instanceof Class) {
+                return (Class<?>) argument;
+            }
+            if (argument instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) argument).getRawType();
+            }
+        }
+        throw new SqlRepositoryException("Cannot resolve element type of return type: " + method);
+    }
+
+    /**
+     * Tells whether a SQL script produces a result set, judging by its first keyword.
+     */
+    static boolean isQuery(String sql) {
+        String keyword = firstKeyword(sql).toUpperCase(Locale.ROOT);
+        return keyword.equals("SELECT") || keyword.equals("WITH") || keyword.equals("VALUES")
+                || keyword.equals("TABLE") || keyword.equals("SHOW") || keyword.equals("EXPLAIN");
+    }
+
+    /**
+     * Returns the first keyword of a SQL script, skipping whitespace, comments and opening parentheses.
+     */
+    private static String firstKeyword(String sql) {
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        int start = i;
+        while (i < length && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        return sql.substring(start, i);
+    }
+}
@@ -0,0 +1,74 @@
+package com.ravesql;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 💰 **RetryBudget** 💰
+ *
+ * Caps how many retries a {@link RetryPolicy} may spend, so retries can't turn a struggling database into a
+ * collapsed one. Every call deposits a fraction of a token and every retry withdraws a whole one: in steady state
+ * retries are limited to {@code ratio} of all calls, with up to {@code maxTokens} saved up for short bursts.
+ * A budget may be shared by several policies to bound retries across a group of SQL paths.
+ */
+public class RetryBudget {
+
+    /**
+     * Tokens are counted in thousandths so fractional deposits stay lock-free.
+     */
+    private static final long SCALE = 1000;
+
+    private final long depositPerCall;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    /**
+     * 🛠️ **RetryBudget Constructor** 🛠️
+     *
+     * Creates a budget that starts full.
+     *
+     * @param ratio     the share of calls that may be retried, e.g. {@code 0.1} for 10%
+     * @param maxTokens the maximum number of retries that can be saved up
+     * @throws IllegalArgumentException if the ratio is negative or {@code maxTokens} is negative
+     */
+    public RetryBudget(double ratio, int maxTokens) {
+        if (ratio < 0 || maxTokens < 0) {
+            throw new IllegalArgumentException("Retry budget ratio and max tokens must not be negative.");
+        }
+        this.depositPerCall = Math.round(ratio * SCALE);
+        this.maxBalance = maxTokens * SCALE;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    /**
+     * 💵 **Get Available Retries** 💵
+     *
+     * @return the number of whole retries currently available
+     */
+    public long getAvailableRetries() {
+        return balance.get() / SCALE;
+    }
+
+    /**
+     * Credits the budget for a new call.
+     */
+    void deposit() {
+        balance.accumulateAndGet(depositPerCall, (current, deposit) -> Math.min(maxBalance, current + deposit));
+    }
+
+    /**
+     * Takes one retry out of the budget.
+     *
+     * @return {@code true} if a retry was available
+     */
+    boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
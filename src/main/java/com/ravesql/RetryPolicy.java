@@ -0,0 +1,274 @@
+package com.ravesql;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 🔁 **RetryPolicy** 🔁
+ *
+ * Retries calls that fail with transient errors such as deadlocks or serialization failures. Register it for an
+ * idempotent SQL path with {@link RaveRepository#setRetryPolicy(String, RetryPolicy)} and every call of that path
+ * is retried with exponential backoff and jitter, up to a maximum number of attempts and within a
+ * {@link RetryBudget}. Failures are classified by the SQLState of the underlying {@link SQLException}.
+ *
+ * Calls are never retried inside a transaction, Spring-managed or a {@link RaveSession}'s own, because the failure
+ * has already aborted or rolled it back; the whole unit of work has to be retried instead. Calls binding
+ * {@code InputStream} or {@code Reader} parameters are not retried either, as the failed attempt consumed them.
+ *
+ * Policies are immutable and built with {@link #builder()}.
+ */
+public class RetryPolicy {
+
+    /**
+     * 📣 **RetryListener** 📣
+     *
+     * Reports the outcome of every call executed under a policy.
+     */
+    @FunctionalInterface
+    public interface RetryListener {
+
+        /**
+         * Called once per call, after its last attempt.
+         *
+         * @param sqlPath  the path to the SQL file
+         * @param attempts the number of attempts the call took, at least 1
+         * @param failure  the exception the call finally failed with, or {@code null} on success
+         */
+        void onComplete(String sqlPath, int attempts, RuntimeException failure);
+    }
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double multiplier;
+    private final double jitter;
+    private final Set<String> retryableSqlStates;
+    private final RetryBudget budget;
+    private final RetryListener listener;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.retryableSqlStates = Collections.unmodifiableSet(new LinkedHashSet<>(builder.retryableSqlStates));
+        this.budget = builder.budget != null ? builder.budget : new RetryBudget(0.1, 10);
+        this.listener = builder.listener;
+    }
+
+    /**
+     * 🏗️ **Builder** 🏗️
+     *
+     * @return a builder preset to 3 attempts, 50 ms initial backoff doubling up to 2 s with 50% jitter,
+     *         retrying SQLStates {@code 40001} (serialization failure) and {@code 40P01} (deadlock)
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the maximum number of attempts per call, including the first
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return the SQLStates or two-character SQLState classes treated as transient
+     */
+    public Set<String> getRetryableSqlStates() {
+        return retryableSqlStates;
+    }
+
+    /**
+     * @return the budget retries are drawn from
+     */
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Runs a call, retrying transient failures.
+     *
+     * @param <T>     the result type
+     * @param sqlPath      the path to the SQL file, reported to the listener
+     * @param call         the call to run
+     * @param retryAllowed whether the call may run again; only asked after a retryable failure, so it may be costly
+     * @return the result of the first successful attempt
+     */
+    <T> T execute(String sqlPath, Supplier<T> call, BooleanSupplier retryAllowed) {
+        budget.deposit();
+        int attempt = 1;
+        while (true) {
+            try {
+                T result = call.get();
+                notifyListener(sqlPath, attempt, null);
+                return result;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isRetryable(e) || !retryAllowed.getAsBoolean()
+                        || !budget.tryWithdraw()) {
+                    notifyListener(sqlPath, attempt, e);
+                    throw e;
+                }
+                try {
+                    Thread.sleep(backoffMillis(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    notifyListener(sqlPath, attempt, e);
+                    throw e;
+                }
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Tells whether a failure carries a retryable SQLState anywhere in its cause chain.
+     */
+    boolean isRetryable(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof SQLException) {
+                String sqlState = ((SQLException) t).getSQLState();
+                if (sqlState != null && (retryableSqlStates.contains(sqlState)
+                        || (sqlState.length() >= 2 && retryableSqlStates.contains(sqlState.substring(0, 2))))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the delay before the next attempt: exponential growth capped at the maximum, with part of it
+     * randomised so competing callers don't retry in lockstep.
+     */
+    long backoffMillis(int attempt) {
+        double base = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() * Math.pow(multiplier, attempt - 1));
+        double jittered = base * (1 - jitter * ThreadLocalRandom.current().nextDouble());
+        return Math.max(0, Math.round(jittered));
+    }
+
+    private void notifyListener(String sqlPath, int attempts, RuntimeException failure) {
+        if (listener != null) {
+            listener.onComplete(sqlPath, attempts, failure);
+        }
+    }
+
+    /**
+     * 🏗️ **RetryPolicy.Builder** 🏗️
+     *
+     * Collects the settings of a {@link RetryPolicy}.
+     */
+    public static final class Builder {
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(50);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+        private double multiplier = 2.0;
+        private double jitter = 0.5;
+        private Set<String> retryableSqlStates = new LinkedHashSet<>(Arrays.asList("40001", "40P01"));
+        private RetryBudget budget;
+        private RetryListener listener;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxAttempts the maximum number of attempts per call, including the first; at least 1
+         * @return this builder
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("Max attempts must be at least 1.");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param initialBackoff the delay before the first retry
+         * @return this builder
+         */
+        public Builder initialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        /**
+         * @param maxBackoff the upper bound of any single delay
+         * @return this builder
+         */
+        public Builder maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * @param multiplier the factor the delay grows by after each retry; at least 1
+         * @return this builder
+         */
+        public Builder multiplier(double multiplier) {
+            if (multiplier < 1) {
+                throw new IllegalArgumentException("Multiplier must be at least 1.");
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * @param jitter the share of each delay that is randomised, between 0 (none) and 1 (full jitter)
+         * @return this builder
+         */
+        public Builder jitter(double jitter) {
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("Jitter must be between 0 and 1.");
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Replaces the retryable SQLStates. Two-character entries match a whole SQLState class,
+         * e.g. {@code "40"} for all transaction rollbacks.
+         *
+         * @param sqlStates the SQLStates treated as transient
+         * @return this builder
+         */
+        public Builder retryOnSqlStates(String... sqlStates) {
+            this.retryableSqlStates = new LinkedHashSet<>(Arrays.asList(sqlStates));
+            return this;
+        }
+
+        /**
+         * @param budget the budget retries are drawn from, possibly shared with other policies
+         * @return this builder
+         */
+        public Builder budget(RetryBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * @param listener notified with the attempt count of every call
+         * @return this builder
+         */
+        public Builder listener(RetryListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * @return the configured policy
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
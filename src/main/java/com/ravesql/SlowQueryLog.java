@@ -0,0 +1,330 @@
+package com.ravesql;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 🐢 **SlowQueryLog** 🐢
+ *
+ * Spots the tracks that drag the tempo down. Attach it with {@link RaveRepository#setSlowQueryLog(SlowQueryLog)}
+ * and every list, single-object, update and batch call is timed against a threshold configured per SQL path.
+ * Calls that cross it land in a bounded ring buffer with the SQL path, a redacted parameter summary, the split
+ * between execution and mapping time, and the row count. Optionally, an {@code EXPLAIN} plan is captured once per
+ * SQL path.
+ *
+ * The log is safe to leave on in production: parameter values are never stored (only names and types), memory
+ * is bounded by the buffer capacity, and {@code EXPLAIN} runs at most once per path until {@link #clear()}.
+ * Plans are never captured inside a transaction, where a failing {@code EXPLAIN} could abort the caller's work,
+ * nor for calls with stream parameters, which cannot be bound twice; such paths get their plan on a later call.
+ * Streaming queries are not timed, as their duration depends on the consumer.
+ */
+public class SlowQueryLog {
+
+    /**
+     * 🎚️ **Entry** 🎚️
+     *
+     * A single slow call, captured as an immutable snapshot.
+     */
+    public static final class Entry {
+        private final String sqlPath;
+        private final String parameterSummary;
+        private final Duration executionTime;
+        private final Duration mappingTime;
+        private final long rowCount;
+        private final Instant timestamp;
+
+        Entry(String sqlPath, String parameterSummary, Duration executionTime, Duration mappingTime,
+              long rowCount, Instant timestamp) {
+            this.sqlPath = sqlPath;
+            this.parameterSummary = parameterSummary;
+            this.executionTime = executionTime;
+            this.mappingTime = mappingTime;
+            this.rowCount = rowCount;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * @return the path of the SQL file that ran slowly
+         */
+        public String getSqlPath() {
+            return sqlPath;
+        }
+
+        /**
+         * @return parameter names with value types only, e.g. {@code id:Integer, name:String}
+         */
+        public String getParameterSummary() {
+            return parameterSummary;
+        }
+
+        /**
+         * @return time spent executing the statement and fetching rows, excluding row mapping
+         */
+        public Duration getExecutionTime() {
+            return executionTime;
+        }
+
+        /**
+         * @return time spent inside the row mapper
+         */
+        public Duration getMappingTime() {
+            return mappingTime;
+        }
+
+        /**
+         * @return total time of the call
+         */
+        public Duration getTotalTime() {
+            return executionTime.plus(mappingTime);
+        }
+
+        /**
+         * @return rows mapped for queries, or rows affected for updates
+         */
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * @return when the call finished
+         */
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return "SlowQuery{" + sqlPath + ", params=[" + parameterSummary + "], execution=" + executionTime
+                    + ", mapping=" + mappingTime + ", rows=" + rowCount + ", at=" + timestamp + "}";
+        }
+    }
+
+    /**
+     * The plan state of one SQL path.
+     */
+    private static final class CapturedPlan {
+
+        /**
+         * Stored while a plan is being captured, so concurrent slow calls don't all run {@code EXPLAIN}.
+         */
+        static final CapturedPlan PENDING = new CapturedPlan(null);
+
+        private final String text;
+
+        CapturedPlan(String text) {
+            this.text = text;
+        }
+    }
+
+    private final long defaultThresholdNanos;
+    private final Map<String, Long> thresholdNanos = new ConcurrentHashMap<>();
+    private final Map<String, CapturedPlan> plans = new ConcurrentHashMap<>();
+    private final Entry[] buffer;
+    private long recorded;
+    private volatile boolean explainEnabled;
+
+    /**
+     * 🛠️ **SlowQueryLog Constructor** 🛠️
+     *
+     * @param defaultThreshold calls at or above this duration are recorded unless a path overrides it
+     * @param capacity         the maximum number of entries kept; the oldest are overwritten first
+     * @throws IllegalArgumentException if the capacity is not positive or the threshold is negative
+     */
+    public SlowQueryLog(Duration defaultThreshold, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        if (defaultThreshold.isNegative()) {
+            throw new IllegalArgumentException("Threshold must not be negative.");
+        }
+        this.defaultThresholdNanos = defaultThreshold.toNanos();
+        this.buffer = new Entry[capacity];
+    }
+
+    /**
+     * ⏱️ **Set Threshold** ⏱️
+     *
+     * Overrides the slow-call threshold for a single SQL path.
+     *
+     * @param sqlPath   the path to the SQL file
+     * @param threshold calls at or above this duration are recorded
+     * @return this log, for chaining
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public SlowQueryLog setThreshold(String sqlPath, Duration threshold) {
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("Threshold must not be negative.");
+        }
+        thresholdNanos.put(sqlPath, threshold.toNanos());
+        return this;
+    }
+
+    /**
+     * 🔬 **Set Explain Enabled** 🔬
+     *
+     * When enabled, the first slow call of each SQL path also runs {@code EXPLAIN} with the same parameters
+     * and stores the plan. {@code EXPLAIN} failures are stored as the plan text instead of being thrown.
+     *
+     * @param explainEnabled whether to capture plans
+     * @return this log, for chaining
+     */
+    public SlowQueryLog setExplainEnabled(boolean explainEnabled) {
+        this.explainEnabled = explainEnabled;
+        return this;
+    }
+
+    /**
+     * 📜 **Get Entries** 📜
+     *
+     * @return a snapshot of the recorded slow calls, oldest first
+     */
+    public synchronized List<Entry> getEntries() {
+        int size = (int) Math.min(recorded, buffer.length);
+        List<Entry> entries = new ArrayList<>(size);
+        for (long i = recorded - size; i < recorded; i++) {
+            entries.add(buffer[(int) (i % buffer.length)]);
+        }
+        return entries;
+    }
+
+    /**
+     * 🗺️ **Get Plan** 🗺️
+     *
+     * @param sqlPath the path to the SQL file
+     * @return the captured {@code EXPLAIN} output, or {@code null} if none was captured
+     */
+    public String getPlan(String sqlPath) {
+        CapturedPlan plan = plans.get(sqlPath);
+        return plan == null ? null : plan.text;
+    }
+
+    /**
+     * 🧹 **Clear** 🧹
+     *
+     * Drops all recorded entries and captured plans, so plans are captured again on the next slow call.
+     */
+    public synchronized void clear() {
+        Arrays.fill(buffer, null);
+        recorded = 0;
+        plans.clear();
+    }
+
+    // ====================================================================================
+    //                                PACKAGE HELPER METHODS
+    // ====================================================================================
+
+    /**
+     * Starts timing a call.
+     */
+    Timing start() {
+        return new Timing(System.nanoTime());
+    }
+
+    /**
+     * Finishes timing a call and records it if it crossed the threshold of its SQL path.
+     *
+     * @param sqlPath     the path to the SQL file
+     * @param paramSource the parameters the call ran with
+     * @param timing      the timing started for the call
+     * @param rowCount    rows mapped or affected
+     * @param planAllowed whether the caller may run {@code EXPLAIN} for this call; only asked for slow calls of
+     *                    a path whose plan is still missing, so it may be costly
+     * @return {@code true} if the call was slow and its plan should now be captured by the caller
+     */
+    boolean finish(String sqlPath, SqlParameterSource paramSource, Timing timing, long rowCount,
+                   BooleanSupplier planAllowed) {
+        long totalNanos = System.nanoTime() - timing.startNanos;
+        if (totalNanos < thresholdNanos.getOrDefault(sqlPath, defaultThresholdNanos)) {
+            return false;
+        }
+        long mappingNanos = Math.min(timing.mappingNanos, totalNanos);
+        record(new Entry(sqlPath, summarize(paramSource), Duration.ofNanos(totalNanos - mappingNanos),
+                Duration.ofNanos(mappingNanos), rowCount, Instant.now()));
+        return explainEnabled && !plans.containsKey(sqlPath) && planAllowed.getAsBoolean()
+                && plans.putIfAbsent(sqlPath, CapturedPlan.PENDING) == null;
+    }
+
+    /**
+     * Stores the plan captured for a SQL path.
+     */
+    void storePlan(String sqlPath, String plan) {
+        plans.put(sqlPath, new CapturedPlan(plan));
+    }
+
+    private synchronized void record(Entry entry) {
+        buffer[(int) (recorded % buffer.length)] = entry;
+        recorded++;
+    }
+
+    /**
+     * Describes parameters by name and value type only, so no values leak into the log.
+     */
+    static String summarize(SqlParameterSource paramSource) {
+        String[] names = paramSource == null ? null : paramSource.getParameterNames();
+        if (names == null) {
+            return "";
+        }
+        StringBuilder summary = new StringBuilder();
+        for (String name : names) {
+            if (summary.length() > 0) {
+                summary.append(", ");
+            }
+            Object value = paramSource.getValue(name);
+            summary.append(name).append(':');
+            if (value == null) {
+                summary.append("null");
+            } else if (value instanceof Collection) {
+                summary.append(value.getClass().getSimpleName()).append('[').append(((Collection<?>) value).size()).append(']');
+            } else {
+                summary.append(value.getClass().getSimpleName());
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Times a single call, accumulating the time spent inside its row mapper.
+     * A timing belongs to one call on one thread.
+     */
+    static final class Timing {
+        private final long startNanos;
+        private long mappingNanos;
+        private long rows;
+
+        private Timing(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * @return the number of rows passed through mappers created by {@link #wrap(RowMapper)}
+         */
+        long rows() {
+            return rows;
+        }
+
+        /**
+         * Wraps a row mapper so its time and row count are attributed to this call.
+         */
+        <T> RowMapper<T> wrap(RowMapper<T> rowMapper) {
+            return (rs, rowNum) -> {
+                long start = System.nanoTime();
+                try {
+                    return rowMapper.mapRow(rs, rowNum);
+                } finally {
+                    mappingNanos += System.nanoTime() - start;
+                    rows++;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepository.SqlRepositoryException;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 📀 **SqlFileLoader** 📀
+ *
+ * Loads SQL files from the classpath and keeps them cached for {@link RaveRepository}. Classpath I/O never
+ * runs inside a map lock: concurrent first requests for the same path collapse into a single in-flight load,
+ * while loads of other paths keep spinning undisturbed. Failed loads are remembered for a short time so a
+ * missing track does not get hammered by every waiting raver.
+ */
+class SqlFileLoader {
+
+    /**
+     * Default time a failed load is remembered before the file is looked up again.
+     */
+    static final Duration DEFAULT_FAILURE_TTL = Duration.ofSeconds(5);
+
+    /**
+     * Successfully loaded SQL strings, keyed by SQL path.
+     */
+    private final ConcurrentHashMap<String, String> sqlCache = new ConcurrentHashMap<>();
+
+    /**
+     * Loads currently in progress, keyed by SQL path. Waiters join the future instead of reading the file again.
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Recently failed loads, keyed by SQL path.
+     */
+    private final ConcurrentHashMap<String, FailedLoad> failures = new ConcurrentHashMap<>();
+
+    private final Function<String, String> reader;
+    private final long failureTtlNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates a loader that reads SQL files through the given class loader.
+     *
+     * @param classLoader the class loader used to resolve SQL paths
+     */
+    SqlFileLoader(ClassLoader classLoader) {
+        this(path -> readResource(classLoader, path), DEFAULT_FAILURE_TTL, System::nanoTime);
+    }
+
+    /**
+     * Creates a loader with a custom reader, failure TTL and clock.
+     *
+     * @param reader     reads the SQL for a path, throwing {@link SqlRepositoryException} on failure
+     * @param failureTtl how long a failed load is remembered
+     * @param nanoClock  the monotonic clock used to expire failures
+     */
+    SqlFileLoader(Function<String, String> reader, Duration failureTtl, LongSupplier nanoClock) {
+        this.reader = reader;
+        this.failureTtlNanos = failureTtl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the SQL for the given path, loading it on first use.
+     *
+     * @param sqlPath the path to the SQL file
+     * @return the SQL string ready to be executed
+     * @throws SqlRepositoryException if the SQL file is not found or cannot be read
+     */
+    String load(String sqlPath) {
+        String sql = sqlCache.get(sqlPath);
+        if (sql != null) {
+            return sql;
+        }
+
+        FailedLoad failure = recentFailure(sqlPath);
+        if (failure != null) {
+            throw failure.rethrow();
+        }
+
+        CompletableFuture<String> load = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(sqlPath, load);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            // Another thread may have finished or failed loading between the checks above and claiming the slot
+            sql = sqlCache.get(sqlPath);
+            if (sql == null) {
+                failure = recentFailure(sqlPath);
+                if (failure != null) {
+                    throw failure.rethrow();
+                }
+                sql = reader.apply(sqlPath);
+                sqlCache.put(sqlPath, sql);
+            }
+            load.complete(sql);
+            return sql;
+        } catch (SqlRepositoryException e) {
+            // Keeps the original failure time when rethrowing a remembered failure
+            failures.putIfAbsent(sqlPath, new FailedLoad(e, nanoClock.getAsLong()));
+            load.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(sqlPath, load);
+        }
+    }
+
+    /**
+     * Clears cached SQL and remembered failures. Loads already in flight complete normally.
+     */
+    void clear() {
+        sqlCache.clear();
+        failures.clear();
+    }
+
+    /**
+     * Returns the remembered failure of a path if it is still within its TTL, forgetting it once expired.
+     */
+    private FailedLoad recentFailure(String sqlPath) {
+        FailedLoad failure = failures.get(sqlPath);
+        if (failure == null) {
+            return null;
+        }
+        if (nanoClock.getAsLong() - failure.failedAt < failureTtlNanos) {
+            return failure;
+        }
+        failures.remove(sqlPath, failure);
+        return null;
+    }
+
+    /**
+     * Waits for a load started by another thread and surfaces its failure as this thread's own.
+     */
+    private static String await(CompletableFuture<String> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SqlRepositoryException) {
+                throw new SqlRepositoryException(cause.getMessage(), cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a SQL file from the classpath.
+     *
+     * @param classLoader the class loader used to resolve the path
+     * @param path        the path to the SQL file
+     * @return the SQL string
+     * @throws SqlRepositoryException if the SQL file is not found or cannot be read
+     */
+    private static String readResource(ClassLoader classLoader, String path) {
+        try (InputStream is = classLoader.getResourceAsStream(path)) {
+            if (is == null) {
+                throw new SqlRepositoryException("SQL file not found: " + path);
+            }
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (FileNotFoundException e) {
+            throw new SqlRepositoryException("SQL file not found: " + path, e);
+        } catch (IOException e) {
+            throw new SqlRepositoryException("Error reading SQL file: " + path, e);
+        }
+    }
+
+    /**
+     * A remembered load failure together with the time it happened.
+     */
+    private static final class FailedLoad {
+        private final SqlRepositoryException exception;
+        private final long failedAt;
+
+        FailedLoad(SqlRepositoryException exception, long failedAt) {
+            this.exception = exception;
+            this.failedAt = failedAt;
+        }
+
+        SqlRepositoryException rethrow() {
+            return new SqlRepositoryException(exception.getMessage(), exception);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ravesql;
+
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 💾 **StreamingLobValue** 💾
+ *
+ * Binds an {@link InputStream} or {@link Reader} parameter with {@link PreparedStatement#setBinaryStream(int,
+ * InputStream)} or {@link PreparedStatement#setCharacterStream(int, Reader)}, so the driver pulls the payload
+ * from the stream while executing instead of the whole LOB being buffered in memory first.
+ *
+ * Streams are single-use: once a statement has been executed the stream is consumed, and binding it again would
+ * silently write a truncated or empty LOB. A parameter object carrying a stream must therefore be used for exactly
+ * one call, and features that would bind the same parameters twice, such as retries and {@code EXPLAIN} capture,
+ * check {@link #containsStream(SqlParameterSource)} and stand down.
+ */
+final class StreamingLobValue implements SqlTypeValue {
+
+    private final Object stream;
+
+    private StreamingLobValue(Object stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Wraps stream values for streaming binding and returns any other value unchanged.
+     *
+     * @param value a parameter value
+     * @return the value to bind
+     */
+    static Object wrapIfStream(Object value) {
+        if (value instanceof InputStream || value instanceof Reader) {
+            return new StreamingLobValue(value);
+        }
+        return value;
+    }
+
+    /**
+     * Tells whether any value of a parameter source is a stream, wrapped or not.
+     *
+     * @param paramSource the parameters of a call
+     * @return {@code true} if binding the parameters consumes a stream
+     */
+    static boolean containsStream(SqlParameterSource paramSource) {
+        String[] names = paramSource == null ? null : paramSource.getParameterNames();
+        if (names == null) {
+            return false;
+        }
+        for (String name : names) {
+            if (paramSource.hasValue(name)) {
+                Object value = paramSource.getValue(name);
+                if (value instanceof StreamingLobValue || value instanceof InputStream || value instanceof Reader) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void setTypeValue(PreparedStatement ps, int paramIndex, int sqlType, String typeName) throws SQLException {
+        if (stream instanceof InputStream) {
+            ps.setBinaryStream(paramIndex, (InputStream) stream);
+        } else {
+            ps.setCharacterStream(paramIndex, (Reader) stream);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return stream instanceof InputStream ? "InputStream" : "Reader";
+    }
+}
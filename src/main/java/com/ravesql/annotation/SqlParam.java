@@ -0,0 +1,30 @@
+package com.ravesql.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.annotation.ElementType;
+
+/**
+ * 🏷️ **SqlParam Annotation** 🏷️
+ *
+ * Names the SQL parameter that a method argument binds to when the method lives on a repository interface
+ * created by {@code RaveRepository.createRepository}. Like a name on the guest list, it makes sure each value
+ * gets into the right {@code :placeholder} of the SQL script.
+ *
+ * When the annotation is absent, the parameter name from the compiled class is used, which requires compiling
+ * with the {@code -parameters} flag.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface SqlParam {
+
+    /**
+     * 🎶 **SQL Parameter Name** 🎶
+     *
+     * The name of the named parameter in the SQL file, without the leading colon.
+     *
+     * @return the SQL parameter name
+     */
+    String value();
+}
@@ -0,0 +1,398 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepositoryTest.TestEntity;
+import com.ravesql.annotation.SqlPath;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 🏋️ **LoadHarness** 🏋️
+ *
+ * Drives {@link RaveRepository} from many threads against an embedded H2 database and reports throughput,
+ * latency percentiles and allocation rate as JSON. Every thread runs a fixed number of operations chosen by its
+ * own seeded random generator, so two runs with the same configuration execute the same operation sequence and
+ * their reports can be compared across versions.
+ *
+ * Reads alternate between annotated calls, which exercise {@code @SqlPath} lookup through the stack and the SQL
+ * cache, and raw calls over the configured SQL files, each bound by its own parameter supplier. Writes are batch
+ * inserts of fresh rows.
+ *
+ * Configuration is read from system properties prefixed with {@code ravesql.load.}; see {@link Config}.
+ */
+public class LoadHarness {
+
+    /**
+     * Harness settings, read from system properties.
+     */
+    public static final class Config {
+        int threads = intProperty("threads", 8);
+        int operationsPerThread = intProperty("operations", 200);
+        int warmupOperationsPerThread = intProperty("warmup", 50);
+        double readRatio = Double.parseDouble(System.getProperty("ravesql.load.readRatio", "0.9"));
+        int batchSize = intProperty("batchSize", 10);
+        int seedRows = intProperty("seedRows", 1000);
+        int poolSize = intProperty("poolSize", 32);
+        long seed = Long.parseLong(System.getProperty("ravesql.load.seed", "42"));
+        boolean recordOperations;
+
+        /**
+         * Raw reads by SQL path, each with the supplier drawing its key-value parameters from the worker's
+         * random generator.
+         */
+        final Map<String, Function<SplittableRandom, Object[]>> readQueries = new LinkedHashMap<>();
+
+        /**
+         * Registers the raw reads named by {@code ravesql.load.readSql} among the known test SQL files.
+         *
+         * @throws IllegalArgumentException if a named SQL file has no known parameters
+         */
+        public Config() {
+            Map<String, Function<SplittableRandom, Object[]>> known = new HashMap<>();
+            known.put("sql/select_by_id.sql", random -> new Object[]{"id", randomId(random)});
+            known.put("sql/select_by_name.sql", random -> new Object[]{"name", "Raver " + randomId(random)});
+            known.put("sql/select_all.sql", random -> new Object[0]);
+            String paths = System.getProperty("ravesql.load.readSql", "sql/select_by_id.sql,sql/select_by_name.sql");
+            for (String sqlPath : paths.split(",")) {
+                Function<SplittableRandom, Object[]> parameters = known.get(sqlPath);
+                if (parameters == null) {
+                    throw new IllegalArgumentException("No parameters known for " + sqlPath
+                            + "; register them with Config#readQuery.");
+                }
+                readQuery(sqlPath, parameters);
+            }
+        }
+
+        /**
+         * @param sqlPath    the path to the SQL file to read with
+         * @param parameters draws the key-value parameters of one call
+         * @return this configuration
+         */
+        public Config readQuery(String sqlPath, Function<SplittableRandom, Object[]> parameters) {
+            readQueries.put(sqlPath, parameters);
+            return this;
+        }
+
+        int randomId(SplittableRandom random) {
+            return 1 + random.nextInt(seedRows);
+        }
+
+        private static int intProperty(String name, int defaultValue) {
+            return Integer.parseInt(System.getProperty("ravesql.load." + name, String.valueOf(defaultValue)));
+        }
+    }
+
+    /**
+     * Latencies of one operation type, in nanoseconds.
+     */
+    static final class LatencyStats {
+        private final long[] latencies;
+
+        LatencyStats(long[] latencies) {
+            this.latencies = latencies;
+            Arrays.sort(this.latencies);
+        }
+
+        int count() {
+            return latencies.length;
+        }
+
+        long percentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+        }
+
+        long max() {
+            return latencies.length == 0 ? 0 : latencies[latencies.length - 1];
+        }
+
+        double mean() {
+            return Arrays.stream(latencies).average().orElse(0);
+        }
+    }
+
+    /**
+     * The outcome of a run.
+     */
+    static final class Report {
+        Config config;
+        long wallNanos;
+        long allocatedBytes;
+        LatencyStats reads;
+        LatencyStats writes;
+
+        /**
+         * The operations each thread ran, in order, or {@code null} unless {@link Config#recordOperations} is set.
+         */
+        List<List<String>> operations;
+
+        double throughput() {
+            return (reads.count() + writes.count()) / (wallNanos / 1e9);
+        }
+
+        String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("{\n");
+            json.append("  \"config\": {")
+                    .append("\"threads\": ").append(config.threads)
+                    .append(", \"operationsPerThread\": ").append(config.operationsPerThread)
+                    .append(", \"readRatio\": ").append(config.readRatio)
+                    .append(", \"batchSize\": ").append(config.batchSize)
+                    .append(", \"poolSize\": ").append(config.poolSize)
+                    .append(", \"seed\": ").append(config.seed)
+                    .append(", \"readSql\": \"").append(String.join(",", config.readQueries.keySet())).append("\"},\n");
+            json.append("  \"wallTimeMs\": ").append(format(wallNanos / 1e6)).append(",\n");
+            json.append("  \"throughputOpsPerSec\": ").append(format(throughput())).append(",\n");
+            json.append("  \"allocatedBytes\": ").append(allocatedBytes).append(",\n");
+            json.append("  \"allocationRateBytesPerSec\": ")
+                    .append(allocatedBytes < 0 ? "-1" : format(allocatedBytes / (wallNanos / 1e9))).append(",\n");
+            json.append("  \"read\": ").append(statsJson(reads)).append(",\n");
+            json.append("  \"write\": ").append(statsJson(writes)).append("\n");
+            json.append("}\n");
+            return json.toString();
+        }
+
+        private static String statsJson(LatencyStats stats) {
+            return "{\"count\": " + stats.count()
+                    + ", \"meanUs\": " + format(stats.mean() / 1e3)
+                    + ", \"p50Us\": " + format(stats.percentile(50) / 1e3)
+                    + ", \"p99Us\": " + format(stats.percentile(99) / 1e3)
+                    + ", \"p999Us\": " + format(stats.percentile(99.9) / 1e3)
+                    + ", \"maxUs\": " + format(stats.max() / 1e3) + "}";
+        }
+
+        private static String format(double value) {
+            return String.format(Locale.ROOT, "%.3f", value);
+        }
+    }
+
+    private final Config config;
+    private final RaveRepository repository;
+    private final JdbcConnectionPool pool;
+    private final List<String> readSqlPaths;
+
+    LoadHarness(Config config) {
+        if (config.readQueries.isEmpty()) {
+            throw new IllegalArgumentException("At least one raw read query is required.");
+        }
+        this.config = config;
+        this.readSqlPaths = new ArrayList<>(config.readQueries.keySet());
+        this.pool = JdbcConnectionPool.create("jdbc:h2:mem:load;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        this.pool.setMaxConnections(config.poolSize);
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(pool);
+        this.repository = new RaveRepository(jdbcTemplate);
+
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS test_table;");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE test_table (id INT PRIMARY KEY, name VARCHAR(255));");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO test_table (id, name) SELECT X, 'Raver ' || X FROM SYSTEM_RANGE(1, "
+                + config.seedRows + ");");
+    }
+
+    /**
+     * Runs the warm-up and the measured phase, then releases the database.
+     *
+     * @return the report of the measured phase
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    Report run() throws InterruptedException {
+        try {
+            runPhase(config.warmupOperationsPerThread, config.seed ^ 0x5DEECE66DL, 0);
+            clearTable();
+            return runPhase(config.operationsPerThread, config.seed, 1);
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    private Report runPhase(int operationsPerThread, long seed, int phase) throws InterruptedException {
+        com.sun.management.ThreadMXBean threadBean = allocationBean();
+        long[][] readLatencies = new long[config.threads][];
+        long[][] writeLatencies = new long[config.threads][];
+        long[] allocated = new long[config.threads];
+        List<List<String>> operations = config.recordOperations ? new ArrayList<>() : null;
+        for (int t = 0; operations != null && t < config.threads; t++) {
+            operations.add(new ArrayList<>());
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch ready = new CountDownLatch(config.threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < config.threads; t++) {
+            int threadIndex = t;
+            Thread worker = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed + threadIndex);
+                long[] reads = new long[operationsPerThread];
+                long[] writes = new long[operationsPerThread];
+                int readCount = 0;
+                int writeCount = 0;
+                int nextId = firstWriteId(threadIndex, phase);
+                List<String> recorded = operations == null ? null : operations.get(threadIndex);
+                try {
+                    ready.countDown();
+                    start.await();
+                    long allocatedBefore = allocatedBytes(threadBean);
+                    for (int op = 0; op < operationsPerThread; op++) {
+                        boolean read = random.nextDouble() < config.readRatio;
+                        long begin = System.nanoTime();
+                        if (read) {
+                            read(random, recorded);
+                            reads[readCount++] = System.nanoTime() - begin;
+                        } else {
+                            write(nextId, recorded);
+                            nextId += config.batchSize;
+                            writes[writeCount++] = System.nanoTime() - begin;
+                        }
+                    }
+                    long allocatedAfter = allocatedBytes(threadBean);
+                    allocated[threadIndex] = allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore;
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+                readLatencies[threadIndex] = Arrays.copyOf(reads, readCount);
+                writeLatencies[threadIndex] = Arrays.copyOf(writes, writeCount);
+            }, "ravesql-load-" + threadIndex);
+            workers.add(worker);
+            worker.start();
+        }
+
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long wallNanos = System.nanoTime() - begin;
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("Load worker failed", failure.get());
+        }
+
+        Report report = new Report();
+        report.config = config;
+        report.wallNanos = wallNanos;
+        report.allocatedBytes = Arrays.stream(allocated).anyMatch(bytes -> bytes < 0) ? -1 : Arrays.stream(allocated).sum();
+        report.reads = new LatencyStats(Arrays.stream(readLatencies).flatMapToLong(Arrays::stream).toArray());
+        report.writes = new LatencyStats(Arrays.stream(writeLatencies).flatMapToLong(Arrays::stream).toArray());
+        report.operations = operations;
+        return report;
+    }
+
+    /**
+     * Runs one read: half of them through an annotated method, the rest as raw queries over the configured paths,
+     * bound by each path's parameter supplier.
+     */
+    private void read(SplittableRandom random, List<String> recorded) {
+        if (random.nextBoolean()) {
+            int id = config.randomId(random);
+            findById(id);
+            if (recorded != null) {
+                recorded.add("findById " + id);
+            }
+        } else {
+            String sqlPath = readSqlPaths.get(random.nextInt(readSqlPaths.size()));
+            Object[] keyValues = config.readQueries.get(sqlPath).apply(random);
+            repository.rawQuery(sqlPath, TestEntity.class, keyValues);
+            if (recorded != null) {
+                recorded.add("rawQuery " + sqlPath + " " + Arrays.toString(keyValues));
+            }
+        }
+    }
+
+    @SqlPath("sql/select_by_id.sql")
+    private TestEntity findById(int id) {
+        return repository.queryForObject(TestEntity.class, "id", id);
+    }
+
+    /**
+     * Runs one write: a batch insert of fresh rows.
+     */
+    private void write(int firstId, List<String> recorded) {
+        List<TestEntity> batch = new ArrayList<>(config.batchSize);
+        for (int i = 0; i < config.batchSize; i++) {
+            TestEntity entity = new TestEntity();
+            entity.setId(firstId + i);
+            entity.setName("Load " + (firstId + i));
+            batch.add(entity);
+        }
+        repository.rawBatchUpdate("sql/insert.sql", batch);
+        if (recorded != null) {
+            recorded.add("rawBatchUpdate " + firstId);
+        }
+    }
+
+    /**
+     * Gives every thread of every phase its own id range, above the seeded rows.
+     */
+    private int firstWriteId(int threadIndex, int phase) {
+        int idsPerThread = Math.max(config.operationsPerThread, config.warmupOperationsPerThread) * config.batchSize;
+        return config.seedRows + 1 + (phase * config.threads + threadIndex) * idsPerThread;
+    }
+
+    private void clearTable() {
+        repository.getJdbcTemplate().getJdbcTemplate()
+                .update("DELETE FROM test_table WHERE id > ?", config.seedRows);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threadBean) {
+        return threadBean == null ? -1 : threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Runs the harness with the configuration from system properties and prints or writes the JSON report.
+     *
+     * @param args unused
+     * @throws Exception if the run fails
+     */
+    public static void main(String[] args) throws Exception {
+        publish(new LoadHarness(new Config()).run());
+    }
+
+    /**
+     * Writes the report to the file named by {@code ravesql.load.report}, or to standard output if unset.
+     */
+    static void publish(Report report) throws IOException {
+        String json = report.toJson();
+        String reportPath = System.getProperty("ravesql.load.report");
+        if (reportPath == null || reportPath.isEmpty()) {
+            System.out.print(json);
+            return;
+        }
+        Path path = Paths.get(reportPath);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,78 @@
+package com.ravesql;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadHarnessTest {
+
+    // Test that a run with the configured settings completes and produces a full JSON report;
+    // the load-test profile scales the settings up and writes the report to target/load-report.json, and is the
+    // only build running it
+    @Tag("load")
+    @Test
+    public void testRunProducesReport() throws Exception {
+        LoadHarness.Config config = new LoadHarness.Config();
+        LoadHarness.Report report = new LoadHarness(config).run();
+
+        assertEquals(config.threads * config.operationsPerThread, report.reads.count() + report.writes.count());
+        assertTrue(report.throughput() > 0);
+        assertTrue(report.reads.percentile(50) <= report.reads.percentile(99));
+        assertTrue(report.reads.percentile(99) <= report.reads.percentile(99.9));
+
+        String json = report.toJson();
+        for (String key : new String[]{"\"throughputOpsPerSec\"", "\"allocationRateBytesPerSec\"",
+                "\"p50Us\"", "\"p99Us\"", "\"p999Us\"", "\"read\"", "\"write\""}) {
+            assertTrue(json.contains(key), "Missing " + key);
+        }
+        if (System.getProperty("ravesql.load.report") != null) {
+            LoadHarness.publish(report);
+        }
+    }
+
+    // Test that the same seed replays the same operation sequence, and another seed does not
+    @Test
+    public void testSameSeedSameOperations() throws Exception {
+        List<List<String>> first = new LoadHarness(smallConfig(7)).run().operations;
+        List<List<String>> second = new LoadHarness(smallConfig(7)).run().operations;
+        List<List<String>> other = new LoadHarness(smallConfig(8)).run().operations;
+
+        assertEquals(4, first.size());
+        assertEquals(100, first.get(0).size());
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    // Test that raw reads bind the parameters supplied for their SQL file
+    @Test
+    public void testReadParametersPerSqlFile() throws Exception {
+        LoadHarness.Config config = smallConfig(7);
+        config.readQueries.clear();
+        config.readQuery("sql/select_id_range.sql", random -> new Object[]{"rangeStart", 1, "rangeEnd", 11});
+        List<List<String>> operations = new LoadHarness(config).run().operations;
+
+        assertTrue(operations.stream().flatMap(List::stream)
+                .anyMatch("rawQuery sql/select_id_range.sql [rangeStart, 1, rangeEnd, 11]"::equals));
+
+        System.setProperty("ravesql.load.readSql", "sql/unknown.sql");
+        try {
+            assertThrows(IllegalArgumentException.class, LoadHarness.Config::new);
+        } finally {
+            System.clearProperty("ravesql.load.readSql");
+        }
+    }
+
+    private static LoadHarness.Config smallConfig(long seed) {
+        LoadHarness.Config config = new LoadHarness.Config();
+        config.threads = 4;
+        config.operationsPerThread = 100;
+        config.warmupOperationsPerThread = 10;
+        config.readRatio = 0.7;
+        config.seed = seed;
+        config.recordOperations = true;
+        return config;
+    }
+}
@@ -0,0 +1,207 @@
+package com.ravesql;
+
+import com.ravesql.annotation.SqlParam;
+import com.ravesql.annotation.SqlPath;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LobStreamingTest {
+
+    private static final int PAYLOAD_SIZE = 4 * 1024 * 1024;
+
+    private RaveRepository repository;
+
+    // Entity class with lazy LOB handles
+    public static class Document {
+        private int id;
+        private InputStream content;
+        private Reader body;
+
+        public int getId() { return id; }
+        public void setId(int id) { this.id = id; }
+
+        public InputStream getContent() { return content; }
+        public void setContent(InputStream content) { this.content = content; }
+
+        public Reader getBody() { return body; }
+        public void setBody(Reader body) { this.body = body; }
+    }
+
+    // Repository interface binding stream parameters
+    public interface DocumentDao {
+
+        @SqlPath("sql/insert_document.sql")
+        int insert(@SqlParam("id") int id, @SqlParam("content") InputStream content, @SqlParam("body") Reader body);
+
+        @SqlPath("sql/select_documents.sql")
+        Stream<Document> streamAll();
+    }
+
+    // Input stream producing a deterministic payload without holding it in memory
+    static class GeneratedInputStream extends InputStream {
+        private final int size;
+        private int position;
+
+        GeneratedInputStream(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            return position < size ? (position++ % 251) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= size) {
+                return -1;
+            }
+            int n = Math.min(len, size - position);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) (position++ % 251);
+            }
+            return n;
+        }
+    }
+
+    // Reader producing a deterministic text without holding it in memory
+    static class GeneratedReader extends Reader {
+        private final int size;
+        private int position;
+
+        GeneratedReader(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (position >= size) {
+                return -1;
+            }
+            int n = Math.min(len, size - position);
+            for (int i = 0; i < n; i++) {
+                cbuf[off + i] = (char) ('a' + position++ % 26);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        repository = new RaveRepository(jdbcTemplate);
+
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS document_table;");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE document_table (id INT PRIMARY KEY, content BLOB, body CLOB);");
+    }
+
+    // Test streaming LOB parameters in and lazy LOB handles out
+    @Test
+    public void testStreamLobsThroughRawMethods() throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", 1);
+        params.put("content", new GeneratedInputStream(PAYLOAD_SIZE));
+        params.put("body", new GeneratedReader(1000));
+        assertEquals(1, repository.rawUpdate("sql/insert_document.sql", params));
+        assertEquals(1, repository.rawUpdate("sql/insert_document.sql",
+                "id", 2, "content", new GeneratedInputStream(10), "body", new GeneratedReader(10)));
+
+        List<long[]> sizes = new ArrayList<>();
+        try (Stream<Document> documents = repository.rawQueryForStream("sql/select_documents.sql", Document.class)) {
+            documents.forEach(document -> sizes.add(new long[]{document.getId(), drain(document.getContent()), drain(document.getBody())}));
+        }
+
+        assertEquals(2, sizes.size());
+        assertArrayEquals(new long[]{1, PAYLOAD_SIZE, 1000}, sizes.get(0));
+        assertArrayEquals(new long[]{2, 10, 10}, sizes.get(1));
+    }
+
+    // Test that streamed content matches what was written
+    @Test
+    public void testStreamedContentMatches() throws IOException {
+        DocumentDao dao = repository.createRepository(DocumentDao.class);
+        assertEquals(1, dao.insert(7, new GeneratedInputStream(100_000), new GeneratedReader(52)));
+
+        try (Stream<Document> documents = dao.streamAll()) {
+            documents.forEach(document -> {
+                try {
+                    InputStream expected = new GeneratedInputStream(100_000);
+                    InputStream actual = document.getContent();
+                    for (int i = 0; i < 100_000; i++) {
+                        assertEquals(expected.read(), actual.read());
+                    }
+                    assertEquals(-1, actual.read());
+
+                    char[] text = new char[52];
+                    assertEquals(52, document.getBody().read(text));
+                    assertEquals("abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyz", new String(text));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // Test that stream-bearing parameter sources are recognised however the parameters were passed
+    @Test
+    public void testDetectsStreamParameters() {
+        Document document = new Document();
+        document.setContent(new GeneratedInputStream(10));
+
+        assertTrue(StreamingLobValue.containsStream(repository.buildSqlParameterSource(
+                new Object[]{"id", 1, "body", new GeneratedReader(10)})));
+        assertTrue(StreamingLobValue.containsStream(repository.buildSqlParameterSource(document)));
+        assertFalse(StreamingLobValue.containsStream(repository.buildSqlParameterSource(
+                new Object[]{"id", 1, "name", "Alice"})));
+        assertFalse(StreamingLobValue.containsStream(repository.buildSqlParameterSource(null)));
+    }
+
+    private static long drain(InputStream in) {
+        try (in) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                total += n;
+            }
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long drain(Reader in) {
+        try (in) {
+            char[] buffer = new char[8192];
+            long total = 0;
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                total += n;
+            }
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
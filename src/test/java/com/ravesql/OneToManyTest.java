@@ -0,0 +1,211 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepository.SqlRepositoryException;
+import com.ravesql.annotation.SqlPath;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OneToManyTest {
+
+    private RaveRepository repository;
+
+    private final OneToMany<Order, LineItem> ordersWithItems = OneToMany.builder(Order.class, LineItem.class)
+            .childPrefix("item_")
+            .children(Order::addItem)
+            .build();
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        repository = new RaveRepository(jdbcTemplate);
+
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS line_items;");
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS orders;");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE orders (id INT PRIMARY KEY, customer VARCHAR(255), "
+                + "status VARCHAR(20));");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE line_items (id INT PRIMARY KEY, order_id INT, "
+                + "sku VARCHAR(255), quantity INT);");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO orders (id, customer, status) VALUES "
+                + "(1, 'Alice', 'SHIPPED'), (2, 'Bob', 'OPEN'), (3, 'Carol', NULL);");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO line_items (id, order_id, sku, quantity) VALUES "
+                + "(1, 1, 'vinyl', 2), (2, 2, 'glowstick', 10), (3, 1, 'earplugs', 1);");
+    }
+
+    // Test that interleaved join rows fold into parents in order of first appearance
+    @Test
+    public void testAssemblesParentsWithChildren() {
+        List<Order> orders = repository.rawQueryOneToMany("sql/select_orders_with_items.sql", ordersWithItems,
+                "minId", 1);
+
+        assertEquals(3, orders.size());
+        assertEquals("Alice", orders.get(0).getCustomer());
+        assertEquals(2, orders.get(0).getItems().size());
+        assertEquals("vinyl", orders.get(0).getItems().get(0).getSku());
+        assertEquals(2, orders.get(0).getItems().get(0).getQuantity());
+        assertEquals("earplugs", orders.get(0).getItems().get(1).getSku());
+        assertEquals("Bob", orders.get(1).getCustomer());
+        assertEquals(1, orders.get(1).getItems().size());
+        assertEquals(2, orders.get(1).getItems().get(0).getId());
+    }
+
+    // Test that parents without children from a LEFT JOIN keep an empty collection
+    @Test
+    public void testParentWithoutChildren() {
+        List<Order> orders = repository.rawQueryOneToMany("sql/select_orders_with_items.sql", ordersWithItems,
+                "minId", 3);
+
+        assertEquals(1, orders.size());
+        assertEquals(3, orders.get(0).getId());
+        assertEquals("Carol", orders.get(0).getCustomer());
+        assertTrue(orders.get(0).getItems().isEmpty());
+    }
+
+    // Test the annotated variant resolving its SQL file via @SqlPath
+    @Test
+    public void testAnnotatedQuery() {
+        List<Order> orders = findOrders(2);
+
+        assertEquals(2, orders.size());
+        assertEquals("Bob", orders.get(0).getCustomer());
+    }
+
+    // Test that a missing parent ID column is reported instead of silently producing one parent
+    @Test
+    public void testMissingParentIdColumn() {
+        OneToMany<Order, LineItem> mapping = OneToMany.builder(Order.class, LineItem.class)
+                .parentId("order_id")
+                .childPrefix("item_")
+                .children(Order::addItem)
+                .build();
+
+        SqlRepositoryException exception = assertThrows(SqlRepositoryException.class, () ->
+                repository.rawQueryOneToMany("sql/select_orders_with_items.sql", mapping, "minId", 1));
+        assertTrue(exception.getMessage().contains("order_id"));
+    }
+
+    // Test that VARCHAR columns are converted to enum properties
+    @Test
+    public void testEnumProperty() {
+        List<Order> orders = repository.rawQueryOneToMany("sql/select_orders_with_items.sql", ordersWithItems,
+                "minId", 1);
+
+        assertEquals(Status.SHIPPED, orders.get(0).getStatus());
+        assertEquals(Status.OPEN, orders.get(1).getStatus());
+        assertNull(orders.get(2).getStatus());
+    }
+
+    // Test that a value that cannot be converted is reported as a repository error
+    @Test
+    public void testUnconvertibleValue() {
+        OneToMany<MislabeledOrder, LineItem> mapping = OneToMany.builder(MislabeledOrder.class, LineItem.class)
+                .childPrefix("item_")
+                .children((order, item) -> { })
+                .build();
+
+        SqlRepositoryException exception = assertThrows(SqlRepositoryException.class, () ->
+                repository.rawQueryOneToMany("sql/select_orders_with_items.sql", mapping, "minId", 1));
+        assertTrue(exception.getMessage().contains("customer"));
+    }
+
+    @SqlPath("sql/select_orders_with_items.sql")
+    private List<Order> findOrders(int minId) {
+        return repository.queryOneToMany(ordersWithItems, "minId", minId);
+    }
+
+    public enum Status {
+        OPEN, SHIPPED
+    }
+
+    public static class Order {
+        private int id;
+        private String customer;
+        private Status status;
+        private final List<LineItem> items = new ArrayList<>();
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(String customer) {
+            this.customer = customer;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public List<LineItem> getItems() {
+            return items;
+        }
+
+        public void addItem(LineItem item) {
+            items.add(item);
+        }
+    }
+
+    public static class MislabeledOrder {
+        private Status customer;
+
+        public Status getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(Status customer) {
+            this.customer = customer;
+        }
+    }
+
+    public static class LineItem {
+        private int id;
+        private String sku;
+        private int quantity;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
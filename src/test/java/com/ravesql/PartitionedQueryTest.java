@@ -0,0 +1,159 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepositoryTest.TestEntity;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedQueryTest {
+
+    private static final int ROWS = 1000;
+
+    private RaveRepository repository;
+
+    // Counts every row the workers have mapped
+    private static final AtomicInteger MAPPED = new AtomicInteger();
+
+    public static class CountingEntity extends TestEntity {
+        public CountingEntity() {
+            MAPPED.incrementAndGet();
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        repository = new RaveRepository(jdbcTemplate);
+
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS test_table;");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE test_table (id INT PRIMARY KEY, name VARCHAR(255));");
+        jdbcTemplate.getJdbcTemplate().execute(
+                "INSERT INTO test_table (id, name) SELECT X, 'Raver ' || X FROM SYSTEM_RANGE(1, " + ROWS + ");");
+    }
+
+    // Test that an ordered scan returns every row in key order
+    @Test
+    public void testOrderedScan() {
+        PartitionedScan scan = PartitionedScan.builder(1, ROWS + 1).partitions(8).parallelism(4).build();
+        try (Stream<TestEntity> rows = repository.rawPartitionedQuery("sql/select_id_range.sql", TestEntity.class, scan)) {
+            List<Integer> ids = rows.map(TestEntity::getId).collect(Collectors.toList());
+            assertEquals(IntStream.rangeClosed(1, ROWS).boxed().collect(Collectors.toList()), ids);
+        }
+    }
+
+    // Test that an unordered scan returns every row exactly once
+    @Test
+    public void testUnorderedScan() {
+        PartitionedScan scan = PartitionedScan.builder(0, 2000).partitions(13).parallelism(3).ordered(false).build();
+        try (Stream<TestEntity> rows = repository.rawPartitionedQuery("sql/select_id_range.sql", TestEntity.class, scan)) {
+            List<Integer> ids = rows.map(TestEntity::getId).collect(Collectors.toList());
+            assertEquals(ROWS, ids.size());
+            assertEquals(IntStream.rangeClosed(1, ROWS).boxed().collect(Collectors.toSet()), Set.copyOf(ids));
+        }
+    }
+
+    // Test shared parameters alongside the range placeholders
+    @Test
+    public void testSharedParameters() {
+        PartitionedScan scan = PartitionedScan.builder(1, ROWS + 1).partitions(4).build();
+        try (Stream<TestEntity> rows = repository.rawPartitionedQuery("sql/select_id_range_by_prefix.sql",
+                TestEntity.class, scan, "prefix", "Raver 99%")) {
+            List<Integer> ids = rows.map(TestEntity::getId).collect(Collectors.toList());
+            assertEquals(Arrays.asList(99, 990, 991, 992, 993, 994, 995, 996, 997, 998, 999), ids);
+        }
+    }
+
+    // Test that closing the stream early stops the scan
+    @Test
+    public void testEarlyClose() {
+        PartitionedScan scan = PartitionedScan.builder(1, ROWS + 1).partitions(50).parallelism(2).build();
+        try (Stream<TestEntity> rows = repository.rawPartitionedQuery("sql/select_id_range.sql", TestEntity.class, scan)) {
+            assertEquals(1, rows.findFirst().orElseThrow().getId());
+        }
+    }
+
+    // Test slicing of the key range
+    @Test
+    public void testSliceBounds() {
+        assertArrayEquals(new long[]{0, 25, 50, 75, 100},
+                PartitionedScan.builder(0, 100).partitions(4).build().sliceBounds());
+        assertArrayEquals(new long[]{0, 1, 2, 3},
+                PartitionedScan.builder(0, 3).partitions(8).build().sliceBounds());
+        assertArrayEquals(new long[]{5},
+                PartitionedScan.builder(5, 5).partitions(4).build().sliceBounds());
+        assertThrows(IllegalArgumentException.class, () -> PartitionedScan.builder(10, 0));
+    }
+
+    // Test that an empty range yields an empty stream
+    @Test
+    public void testEmptyRange() {
+        PartitionedScan scan = PartitionedScan.builder(7, 7).build();
+        try (Stream<TestEntity> rows = repository.rawPartitionedQuery("sql/select_id_range.sql", TestEntity.class, scan)) {
+            assertEquals(0, rows.count());
+        }
+    }
+
+    // Test that a slow consumer keeps the scan bounded by the per-slice buffers
+    @Test
+    public void testSlowConsumerStaysBounded() throws InterruptedException {
+        MAPPED.set(0);
+        PartitionedScan scan = PartitionedScan.builder(1, ROWS + 1).partitions(4).parallelism(2).bufferRows(10).build();
+        try (Stream<CountingEntity> rows = repository.rawPartitionedQuery("sql/select_id_range.sql",
+                CountingEntity.class, scan)) {
+            Iterator<CountingEntity> iterator = rows.iterator();
+            assertEquals(1, iterator.next().getId());
+            Thread.sleep(300);
+            // Two running slices, each with a full buffer plus the row waiting to be put
+            assertTrue(MAPPED.get() <= 2 * (10 + 1) + 1, "Mapped " + MAPPED.get() + " rows ahead of the consumer");
+            int count = 1;
+            while (iterator.hasNext()) {
+                assertEquals(++count, iterator.next().getId());
+            }
+            assertEquals(ROWS, count);
+        }
+    }
+
+    // Test that closing the stream stops the worker threads
+    @Test
+    public void testCloseStopsWorkers() throws InterruptedException {
+        PartitionedScan scan = PartitionedScan.builder(1, ROWS + 1).parallelism(3).bufferRows(1).build();
+        try (Stream<TestEntity> rows = repository.rawPartitionedQuery("sql/select_id_range.sql", TestEntity.class, scan)) {
+            assertEquals(1, rows.iterator().next().getId());
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scanThreadsAlive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(scanThreadsAlive());
+    }
+
+    // Test that partitions default to a multiple of the parallelism
+    @Test
+    public void testDefaultPartitions() {
+        PartitionedScan scan = PartitionedScan.builder(0, 100).parallelism(3).build();
+        assertEquals(3 * PartitionedScan.PARTITIONS_PER_THREAD, scan.getPartitions());
+        assertEquals(PartitionedScan.DEFAULT_BUFFER_ROWS, scan.getBufferRows());
+    }
+
+    private static boolean scanThreadsAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().startsWith("ravesql-scan-") && thread.isAlive());
+    }
+}
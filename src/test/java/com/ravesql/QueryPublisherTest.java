@@ -0,0 +1,193 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepositoryTest.TestEntity;
+import com.ravesql.annotation.SqlPath;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryPublisherTest {
+
+    private RaveRepository repository;
+    private ExecutorService executor;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        h2.setUser("sa");
+        h2.setPassword("");
+
+        // Keep every connection checked out, so the test can tell which are still open
+        DelegatingDataSource dataSource = new DelegatingDataSource(h2) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                connections.add(connection);
+                return connection;
+            }
+        };
+
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        repository = new RaveRepository(jdbcTemplate);
+        executor = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "test-publisher"));
+        repository.setPublisherExecutor(executor);
+
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS test_table;");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE test_table (id INT PRIMARY KEY, name VARCHAR(255));");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO test_table (id, name) "
+                + "SELECT X, 'Raver ' || X FROM SYSTEM_RANGE(1, 1000);");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Test that rows are only fetched as far as the subscriber has requested
+    @Test
+    public void testHonoursDemand() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber();
+        repository.rawQueryForPublisher("sql/select_id_range.sql", TestEntity.class,
+                "rangeStart", 1, "rangeEnd", 1001).subscribe(subscriber);
+
+        subscriber.request(3);
+        subscriber.awaitItems(3);
+        Thread.sleep(100);
+        assertEquals(3, subscriber.items.size());
+        assertEquals(1, subscriber.items.get(0).getId());
+
+        subscriber.request(Long.MAX_VALUE);
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+        assertEquals(1000, subscriber.items.size());
+        assertEquals(1000, subscriber.items.get(999).getId());
+        assertTrue(subscriber.threads.stream().allMatch("test-publisher"::equals));
+        assertEquals(0L, openConnections());
+    }
+
+    // Test that cancelling mid-stream releases the connection without further signals
+    @Test
+    public void testCancelReleasesConnection() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber();
+        repository.rawQueryForPublisher("sql/select_all.sql", TestEntity.class).subscribe(subscriber);
+
+        subscriber.request(5);
+        subscriber.awaitItems(5);
+        assertEquals(1L, openConnections());
+
+        subscriber.subscription.cancel();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (openConnections() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0L, openConnections());
+
+        subscriber.request(10);
+        Thread.sleep(100);
+        assertEquals(5, subscriber.items.size());
+        assertEquals(1, subscriber.done.getCount());
+    }
+
+    // Test that non-positive demand is reported as an error
+    @Test
+    public void testRejectsNonPositiveDemand() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber();
+        repository.rawQueryForPublisher("sql/select_all.sql", TestEntity.class).subscribe(subscriber);
+
+        subscriber.request(0);
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertEquals(0L, openConnections());
+    }
+
+    // Test that the annotated variant resolves its SQL file via @SqlPath
+    @Test
+    public void testAnnotatedPublisher() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber();
+        findById(42).subscribe(subscriber);
+
+        subscriber.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, subscriber.items.size());
+        assertEquals("Raver 42", subscriber.items.get(0).getName());
+    }
+
+    @SqlPath("sql/select_by_id.sql")
+    private Flow.Publisher<TestEntity> findById(int id) {
+        return repository.queryForPublisher(TestEntity.class, "id", id);
+    }
+
+    private long openConnections() {
+        return connections.stream().filter(connection -> {
+            try {
+                return !connection.isClosed();
+            } catch (SQLException e) {
+                return false;
+            }
+        }).count();
+    }
+
+    /**
+     * Records every signal; demand is driven by the test.
+     */
+    private static class TestSubscriber implements Flow.Subscriber<TestEntity> {
+        private final List<TestEntity> items = new CopyOnWriteArrayList<>();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(TestEntity item) {
+            threads.add(Thread.currentThread().getName());
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        void awaitItems(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (items.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(count, items.size());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepositoryTest.TestEntity;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RaveSessionTest {
+
+    private RaveRepository repository;
+    private final AtomicInteger checkouts = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        h2.setUser("sa");
+        h2.setPassword("");
+
+        // Count every connection checkout
+        DelegatingDataSource dataSource = new DelegatingDataSource(h2) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                checkouts.incrementAndGet();
+                return super.getConnection();
+            }
+        };
+
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        repository = new RaveRepository(jdbcTemplate);
+
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS test_table;");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE test_table (id INT PRIMARY KEY, name VARCHAR(255));");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO test_table (id, name) VALUES (1, 'Alice');");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO test_table (id, name) VALUES (2, 'Bob');");
+        checkouts.set(0);
+    }
+
+    // Test that many calls share one connection
+    @Test
+    public void testCallsShareOneConnection() {
+        int total = repository.withConnection(session -> {
+            int sum = 0;
+            for (int i = 0; i < 20; i++) {
+                sum += session.rawQuery("sql/select_all.sql", TestEntity.class).size();
+            }
+            return sum;
+        });
+        assertEquals(40, total);
+        assertEquals(1, checkouts.get());
+    }
+
+    // Test that deferred writes are flushed as batches when the unit of work completes
+    @Test
+    public void testDeferredUpdatesFlushedAtEnd() {
+        repository.withConnection(session -> {
+            session.deferUpdate("sql/insert.sql", "id", 3, "name", "Charlie");
+            session.deferUpdate("sql/insert.sql", "id", 4, "name", "Dave");
+            session.deferUpdate("sql/update_name.sql", "id", 3, "name", "Charlie Updated");
+            assertEquals(3, session.getDeferredUpdateCount());
+
+            // Deferred writes are not visible before the flush
+            assertEquals(2, session.rawQuery("sql/select_all.sql", TestEntity.class).size());
+            return null;
+        });
+
+        assertEquals(4, repository.rawQuery("sql/select_all.sql", TestEntity.class).size());
+        assertEquals("Charlie Updated",
+                repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 3).getName());
+    }
+
+    // Test explicit flush results in queue order
+    @Test
+    public void testExplicitFlush() {
+        int[] rowsAffected = repository.withConnection(session -> {
+            session.deferUpdate("sql/update_name.sql", "id", 1, "name", "Alice Updated");
+            session.deferUpdate("sql/delete_by_id.sql", "id", 42);
+            session.deferUpdate("sql/update_name.sql", "id", 2, "name", "Bob Updated");
+            int[] result = session.flush();
+            assertEquals(0, session.getDeferredUpdateCount());
+            return result;
+        });
+        assertArrayEquals(new int[]{1, 0, 1}, rowsAffected);
+    }
+
+    // Test that a transaction commits everything on success
+    @Test
+    public void testTransactionCommits() {
+        repository.withTransaction(session -> {
+            session.rawUpdate("sql/update_name.sql", "id", 1, "name", "Alice Updated");
+            session.deferUpdate("sql/insert.sql", "id", 3, "name", "Charlie");
+            return null;
+        });
+        assertEquals(3, repository.rawQuery("sql/select_all.sql", TestEntity.class).size());
+        assertEquals("Alice Updated",
+                repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 1).getName());
+    }
+
+    // Test that a transaction rolls back immediate and deferred writes on failure
+    @Test
+    public void testTransactionRollsBack() {
+        assertThrows(IllegalStateException.class, () -> repository.withTransaction(session -> {
+            session.rawUpdate("sql/update_name.sql", "id", 1, "name", "Alice Updated");
+            session.deferUpdate("sql/insert.sql", "id", 3, "name", "Charlie");
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(2, repository.rawQuery("sql/select_all.sql", TestEntity.class).size());
+        assertEquals("Alice",
+                repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 1).getName());
+    }
+
+    // Test that a failing flush rolls back the whole transaction
+    @Test
+    public void testFailingFlushRollsBack() {
+        assertThrows(RuntimeException.class, () -> repository.withTransaction(session -> {
+            session.rawUpdate("sql/update_name.sql", "id", 2, "name", "Bob Updated");
+            session.deferUpdate("sql/insert.sql", "id", 1, "name", "Duplicate");
+            return null;
+        }));
+        assertEquals("Bob",
+                repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 2).getName());
+    }
+
+    // Test that a session cannot be used after its unit of work returned
+    @Test
+    public void testSessionUnusableAfterEnd() {
+        AtomicReference<RaveSession> leaked = new AtomicReference<>();
+        repository.withConnection(session -> {
+            leaked.set(session);
+            return null;
+        });
+        assertThrows(RuntimeException.class,
+                () -> leaked.get().rawQuery("sql/select_all.sql", TestEntity.class));
+    }
+
+    // Test that a nested transaction joins the outer one, so an outer rollback also undoes the inner writes
+    @Test
+    public void testNestedTransactionJoinsOuter() {
+        assertThrows(IllegalStateException.class, () -> repository.withTransaction(outer -> {
+            outer.rawUpdate("sql/update_name.sql", "id", 1, "name", "Alice Updated");
+            repository.withTransaction(inner -> {
+                inner.deferUpdate("sql/insert.sql", "id", 3, "name", "Charlie");
+                return null;
+            });
+            assertEquals(3, outer.rawQuery("sql/select_all.sql", TestEntity.class).size());
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(1, checkouts.get());
+        assertEquals(2, repository.rawQuery("sql/select_all.sql", TestEntity.class).size());
+        assertEquals("Alice",
+                repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 1).getName());
+    }
+
+    // Test that a transaction cannot start inside a session opened without one
+    @Test
+    public void testNestedTransactionInsideConnectionRejected() {
+        assertThrows(RaveRepository.SqlRepositoryException.class, () -> repository.withConnection(outer ->
+                repository.withTransaction(inner -> inner.rawUpdate("sql/update_name.sql", "id", 1, "name", "X"))));
+        assertEquals("Alice",
+                repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 1).getName());
+    }
+
+    // Test that a failed nested unit of work rolls back the outer transaction even when its failure is caught
+    @Test
+    public void testFailedNestedTransactionMarksRollbackOnly() {
+        assertThrows(RaveRepository.SqlRepositoryException.class, () -> repository.withTransaction(outer -> {
+            try {
+                repository.withTransaction(inner -> {
+                    inner.rawUpdate("sql/insert.sql", "id", 3, "name", "Charlie");
+                    inner.deferUpdate("sql/insert.sql", "id", 4, "name", "Dana");
+                    throw new IllegalStateException("boom");
+                });
+            } catch (IllegalStateException expected) {
+                // The outer unit of work carries on
+            }
+            assertEquals(0, outer.getDeferredUpdateCount());
+            return null;
+        }));
+        assertEquals(2, repository.rawQuery("sql/select_all.sql", TestEntity.class).size());
+    }
+
+    // Test that a failed nested unit of work inside a plain session only drops its own deferred writes
+    @Test
+    public void testFailedNestedConnectionDropsDeferredUpdates() {
+        repository.withConnection(outer -> {
+            outer.deferUpdate("sql/insert.sql", "id", 3, "name", "Charlie");
+            assertThrows(IllegalStateException.class, () -> repository.withConnection(inner -> {
+                inner.deferUpdate("sql/insert.sql", "id", 4, "name", "Dana");
+                throw new IllegalStateException("boom");
+            }));
+            assertEquals(1, outer.getDeferredUpdateCount());
+            return null;
+        });
+        assertEquals(3, repository.rawQuery("sql/select_all.sql", TestEntity.class).size());
+    }
+}
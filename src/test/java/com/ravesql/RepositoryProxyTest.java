@@ -0,0 +1,190 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepositoryTest.TestEntity;
+import com.ravesql.annotation.SqlParam;
+import com.ravesql.annotation.SqlPath;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepositoryProxyTest {
+
+    private RaveRepository repository;
+    private TestDao dao;
+
+    // Repository interface implemented by RaveRepository
+    public interface TestDao {
+
+        @SqlPath("sql/select_all.sql")
+        List<TestEntity> findAll();
+
+        @SqlPath("sql/select_all.sql")
+        Stream<TestEntity> streamAll();
+
+        @SqlPath("sql/select_by_id.sql")
+        TestEntity findById(@SqlParam("id") int id);
+
+        @SqlPath("sql/select_by_id.sql")
+        Optional<TestEntity> findOptionalById(@SqlParam("id") int id);
+
+        @SqlPath("sql/select_by_name.sql")
+        List<TestEntity> findByName(TestEntity filter);
+
+        @SqlPath("sql/select_by_id.sql")
+        TestEntity findByKey(Object id);
+
+        @SqlPath("sql/count_all.sql")
+        int countAll();
+
+        @SqlPath("sql/insert.sql")
+        int insert(@SqlParam("id") int id, @SqlParam("name") String name);
+
+        @SqlPath("sql/update_name.sql")
+        void rename(@SqlParam("id") int id, @SqlParam("name") String name);
+
+        @SqlPath("sql/insert.sql")
+        int[] insertAll(List<TestEntity> entities);
+
+        default String nameOf(int id) {
+            return findById(id).getName();
+        }
+    }
+
+    // Interface with a method the proxy cannot implement
+    public interface BrokenDao {
+        List<TestEntity> findAll();
+    }
+
+    // Interface with a single argument that is neither a placeholder nor a parameter object
+    public interface UnboundDao {
+        @SqlPath("sql/select_by_id.sql")
+        TestEntity findByKey(Object key);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        repository = new RaveRepository(jdbcTemplate);
+        dao = repository.createRepository(TestDao.class);
+
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS test_table;");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE test_table (id INT PRIMARY KEY, name VARCHAR(255));");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO test_table (id, name) VALUES (1, 'Alice');");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO test_table (id, name) VALUES (2, 'Bob');");
+    }
+
+    // Test list return type
+    @Test
+    public void testFindAll() {
+        assertEquals(2, dao.findAll().size());
+    }
+
+    // Test stream return type
+    @Test
+    public void testStreamAll() {
+        try (Stream<TestEntity> stream = dao.streamAll()) {
+            assertEquals(Arrays.asList("Alice", "Bob"),
+                    stream.map(TestEntity::getName).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    // Test single and optional return types with a named parameter
+    @Test
+    public void testFindById() {
+        assertEquals("Alice", dao.findById(1).getName());
+        assertEquals("Bob", dao.findOptionalById(2).map(TestEntity::getName).orElse(null));
+        assertFalse(dao.findOptionalById(42).isPresent());
+        assertThrows(EmptyResultDataAccessException.class, () -> dao.findById(42));
+    }
+
+    // Test a bean parameter object
+    @Test
+    public void testFindByParameterObject() {
+        TestEntity filter = new TestEntity();
+        filter.setName("Bob");
+        List<TestEntity> results = dao.findByName(filter);
+        assertEquals(1, results.size());
+        assertEquals(2, results.get(0).getId());
+    }
+
+    // Test that a single non-simple value is bound by name when its name is a placeholder (tests compile with -parameters)
+    @Test
+    public void testFindByNamedValue() {
+        assertEquals("Bob", dao.findByKey(2).getName());
+    }
+
+    // Test that an argument that cannot be bound is reported when the proxy is created
+    @Test
+    public void testUnboundParameter() {
+        RaveRepository.SqlRepositoryException exception = assertThrows(RaveRepository.SqlRepositoryException.class,
+                () -> repository.createRepository(UnboundDao.class));
+        assertTrue(exception.getMessage().contains(":id"));
+    }
+
+    // Test a scalar query result
+    @Test
+    public void testCountAll() {
+        assertEquals(2, dao.countAll());
+    }
+
+    // Test update, void update and batch update
+    @Test
+    public void testUpdates() {
+        assertEquals(1, dao.insert(3, "Charlie"));
+        dao.rename(3, "Charlie Updated");
+        assertEquals("Charlie Updated", dao.findById(3).getName());
+
+        List<TestEntity> entities = Arrays.asList(
+                new TestEntity() {{ setId(4); setName("Dave"); }},
+                new TestEntity() {{ setId(5); setName("Eve"); }}
+        );
+        assertArrayEquals(new int[]{1, 1}, dao.insertAll(entities));
+        assertEquals(5, dao.countAll());
+    }
+
+    // Test default methods calling back into the proxy
+    @Test
+    public void testDefaultMethod() {
+        assertEquals("Bob", dao.nameOf(2));
+    }
+
+    // Test Object methods on the proxy
+    @Test
+    public void testObjectMethods() {
+        assertEquals(dao, dao);
+        assertNotEquals(dao, repository.createRepository(TestDao.class));
+        assertTrue(dao.toString().contains("TestDao"));
+    }
+
+    // Test that missing @SqlPath is reported when the proxy is created
+    @Test
+    public void testMissingSqlPath() {
+        assertThrows(RaveRepository.SqlRepositoryException.class, () -> repository.createRepository(BrokenDao.class));
+    }
+
+    // Test that annotated DAO methods with parameters still resolve their @SqlPath
+    @Test
+    public void testAnnotatedMethodWithParameters() {
+        assertEquals("Alice", findByIdViaCaller(1).getName());
+    }
+
+    @SqlPath("sql/select_by_id.sql")
+    private TestEntity findByIdViaCaller(int id) {
+        return repository.queryForObject(TestEntity.class, "id", id);
+    }
+}
@@ -0,0 +1,204 @@
+package com.ravesql;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryPolicyTest {
+
+    private FlakyJdbcTemplate jdbcTemplate;
+    private RaveRepository repository;
+    private JdbcDataSource dataSource;
+    private final List<Integer> reportedAttempts = new ArrayList<>();
+
+    // JDBC template whose updates fail with a deadlock a configurable number of times
+    static class FlakyJdbcTemplate extends NamedParameterJdbcTemplate {
+        final AtomicInteger failuresLeft = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+
+        FlakyJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public int update(String sql, SqlParameterSource paramSource) throws DataAccessException {
+            calls.incrementAndGet();
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new DeadlockLoserDataAccessException("Deadlock detected",
+                        new SQLException("Deadlock detected", "40001"));
+            }
+            return super.update(sql, paramSource);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+
+        jdbcTemplate = new FlakyJdbcTemplate(dataSource);
+        repository = new RaveRepository(jdbcTemplate);
+
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS test_table;");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE test_table (id INT PRIMARY KEY, name VARCHAR(255));");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO test_table (id, name) VALUES (1, 'Alice');");
+    }
+
+    private RetryPolicy.Builder fastPolicy() {
+        return RetryPolicy.builder()
+                .initialBackoff(Duration.ofMillis(1))
+                .maxBackoff(Duration.ofMillis(5))
+                .listener((sqlPath, attempts, failure) -> reportedAttempts.add(attempts));
+    }
+
+    // Test that transient failures are retried until the update succeeds
+    @Test
+    public void testRetriesTransientFailure() {
+        repository.setRetryPolicy("sql/update_name.sql", fastPolicy().maxAttempts(3).build());
+        jdbcTemplate.failuresLeft.set(2);
+
+        assertEquals(1, repository.rawUpdate("sql/update_name.sql", "id", 1, "name", "Alice Updated"));
+        assertEquals(3, jdbcTemplate.calls.get());
+        assertEquals(List.of(3), reportedAttempts);
+    }
+
+    // Test that calls inside a Spring-managed transaction fail on the first attempt
+    @Test
+    public void testNoRetryInsideSpringTransaction() {
+        repository.setRetryPolicy("sql/update_name.sql", fastPolicy().maxAttempts(3).build());
+        jdbcTemplate.failuresLeft.set(1);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        assertThrows(DeadlockLoserDataAccessException.class, () -> transactionTemplate.executeWithoutResult(status ->
+                repository.rawUpdate("sql/update_name.sql", "id", 1, "name", "Alice Updated")));
+        assertEquals(1, jdbcTemplate.calls.get());
+        assertTrue(reportedAttempts.isEmpty());
+    }
+
+    // Test that calls binding a stream fail on the first attempt instead of rebinding a drained stream
+    @Test
+    public void testNoRetryWithStreamParameters() {
+        repository.setRetryPolicy("sql/update_name.sql", fastPolicy().maxAttempts(3).build());
+        jdbcTemplate.failuresLeft.set(1);
+
+        assertThrows(DeadlockLoserDataAccessException.class, () -> repository.rawUpdate("sql/update_name.sql",
+                "id", 1, "name", "Alice Updated", "attachment", new ByteArrayInputStream(new byte[16])));
+        assertEquals(1, jdbcTemplate.calls.get());
+    }
+
+    // Test that the max attempts limit is honored
+    @Test
+    public void testGivesUpAfterMaxAttempts() {
+        repository.setRetryPolicy("sql/update_name.sql", fastPolicy().maxAttempts(2).build());
+        jdbcTemplate.failuresLeft.set(5);
+
+        assertThrows(DeadlockLoserDataAccessException.class,
+                () -> repository.rawUpdate("sql/update_name.sql", "id", 1, "name", "Alice Updated"));
+        assertEquals(2, jdbcTemplate.calls.get());
+        assertEquals(List.of(2), reportedAttempts);
+    }
+
+    // Test that paths without a policy are not retried
+    @Test
+    public void testNoPolicyNoRetry() {
+        jdbcTemplate.failuresLeft.set(1);
+
+        assertThrows(DeadlockLoserDataAccessException.class,
+                () -> repository.rawUpdate("sql/update_name.sql", "id", 1, "name", "Alice Updated"));
+        assertEquals(1, jdbcTemplate.calls.get());
+    }
+
+    // Test that non-transient failures are not retried
+    @Test
+    public void testNonTransientFailureNotRetried() {
+        repository.setRetryPolicy("sql/insert.sql", fastPolicy().maxAttempts(5).build());
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> repository.rawUpdate("sql/insert.sql", "id", 1, "name", "Duplicate"));
+        assertEquals(1, jdbcTemplate.calls.get());
+        assertEquals(List.of(1), reportedAttempts);
+    }
+
+    // Test that an exhausted budget stops retries
+    @Test
+    public void testRetryBudget() {
+        RetryBudget budget = new RetryBudget(0.0, 1);
+        repository.setRetryPolicy("sql/update_name.sql", fastPolicy().maxAttempts(5).budget(budget).build());
+        jdbcTemplate.failuresLeft.set(10);
+
+        assertThrows(DeadlockLoserDataAccessException.class,
+                () -> repository.rawUpdate("sql/update_name.sql", "id", 1, "name", "Alice Updated"));
+        assertEquals(2, jdbcTemplate.calls.get());
+        assertEquals(0, budget.getAvailableRetries());
+    }
+
+    // Test SQLState classification, including whole SQLState classes
+    @Test
+    public void testSqlStateClassification() {
+        RetryPolicy policy = RetryPolicy.builder().retryOnSqlStates("40", "HYT00").build();
+        assertTrue(policy.isRetryable(new RuntimeException(new SQLException("serialization", "40001"))));
+        assertTrue(policy.isRetryable(new SQLException("lock timeout", "HYT00")));
+        assertFalse(policy.isRetryable(new SQLException("duplicate key", "23505")));
+        assertFalse(policy.isRetryable(new RuntimeException("no SQL state")));
+    }
+
+    // Test that the retry guard is only consulted after a retryable failure
+    @Test
+    public void testRetryGuardOnlyAfterRetryableFailure() {
+        RetryPolicy policy = fastPolicy().maxAttempts(3).build();
+        AtomicInteger checks = new AtomicInteger();
+
+        assertEquals("ok", policy.execute("sql/select_all.sql", () -> "ok", () -> checks.incrementAndGet() > 0));
+        assertThrows(IllegalStateException.class, () -> policy.execute("sql/select_all.sql", () -> {
+            throw new IllegalStateException("not transient");
+        }, () -> checks.incrementAndGet() > 0));
+        assertEquals(0, checks.get());
+
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(DeadlockLoserDataAccessException.class, () -> policy.execute("sql/select_all.sql", () -> {
+            attempts.incrementAndGet();
+            throw new DeadlockLoserDataAccessException("Deadlock detected",
+                    new SQLException("Deadlock detected", "40001"));
+        }, () -> checks.incrementAndGet() < 0));
+        assertEquals(1, attempts.get());
+        assertEquals(1, checks.get());
+    }
+
+    // Test that backoff grows exponentially and stays within bounds
+    @Test
+    public void testBackoff() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .initialBackoff(Duration.ofMillis(100))
+                .maxBackoff(Duration.ofMillis(300))
+                .jitter(0)
+                .build();
+        assertEquals(100, policy.backoffMillis(1));
+        assertEquals(200, policy.backoffMillis(2));
+        assertEquals(300, policy.backoffMillis(3));
+
+        RetryPolicy jittered = RetryPolicy.builder().initialBackoff(Duration.ofMillis(100)).jitter(1).build();
+        for (int i = 0; i < 100; i++) {
+            long backoff = jittered.backoffMillis(1);
+            assertTrue(backoff >= 0 && backoff <= 100);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepositoryTest.TestEntity;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlowQueryLogTest {
+
+    private RaveRepository repository;
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        repository = new RaveRepository(jdbcTemplate);
+
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE IF EXISTS test_table;");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE test_table (id INT PRIMARY KEY, name VARCHAR(255));");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO test_table (id, name) VALUES (1, 'Alice');");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO test_table (id, name) VALUES (2, 'Bob');");
+    }
+
+    // Test that slow calls are recorded with a redacted parameter summary
+    @Test
+    public void testRecordsSlowCalls() {
+        SlowQueryLog log = new SlowQueryLog(Duration.ZERO, 10);
+        repository.setSlowQueryLog(log);
+
+        repository.rawQuery("sql/select_all.sql", TestEntity.class);
+        repository.rawUpdate("sql/update_name.sql", "id", 1, "name", "Secret Name");
+
+        List<SlowQueryLog.Entry> entries = log.getEntries();
+        assertEquals(2, entries.size());
+
+        SlowQueryLog.Entry query = entries.get(0);
+        assertEquals("sql/select_all.sql", query.getSqlPath());
+        assertEquals(2, query.getRowCount());
+        assertFalse(query.getExecutionTime().isNegative());
+        assertFalse(query.getMappingTime().isNegative());
+
+        SlowQueryLog.Entry update = entries.get(1);
+        assertEquals("sql/update_name.sql", update.getSqlPath());
+        assertEquals(1, update.getRowCount());
+        assertTrue(update.getParameterSummary().contains("name:String"));
+        assertFalse(update.toString().contains("Secret Name"));
+    }
+
+    // Test per-path thresholds
+    @Test
+    public void testPerPathThreshold() {
+        SlowQueryLog log = new SlowQueryLog(Duration.ZERO, 10)
+                .setThreshold("sql/select_all.sql", Duration.ofHours(1));
+        repository.setSlowQueryLog(log);
+
+        repository.rawQuery("sql/select_all.sql", TestEntity.class);
+        repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 1);
+
+        List<SlowQueryLog.Entry> entries = log.getEntries();
+        assertEquals(1, entries.size());
+        assertEquals("sql/select_by_id.sql", entries.get(0).getSqlPath());
+    }
+
+    // Test that the ring buffer keeps only the newest entries
+    @Test
+    public void testBoundedBuffer() {
+        SlowQueryLog log = new SlowQueryLog(Duration.ZERO, 3);
+        repository.setSlowQueryLog(log);
+
+        for (int id = 1; id <= 5; id++) {
+            repository.rawQuery("sql/select_by_id.sql", TestEntity.class, "id", id);
+        }
+
+        List<SlowQueryLog.Entry> entries = log.getEntries();
+        assertEquals(3, entries.size());
+        assertEquals(0, entries.get(2).getRowCount());
+        log.clear();
+        assertTrue(log.getEntries().isEmpty());
+    }
+
+    // Test EXPLAIN capture on H2
+    @Test
+    public void testExplainCapture() {
+        SlowQueryLog log = new SlowQueryLog(Duration.ZERO, 10).setExplainEnabled(true);
+        repository.setSlowQueryLog(log);
+
+        repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 1);
+
+        String plan = log.getPlan("sql/select_by_id.sql");
+        assertNotNull(plan);
+        assertFalse(plan.startsWith("EXPLAIN failed"), plan);
+        assertTrue(plan.toUpperCase().contains("TEST_TABLE"), plan);
+        assertNull(log.getPlan("sql/select_all.sql"));
+    }
+
+    // Test that plans are not captured inside transactions, but on the next slow call outside one
+    @Test
+    public void testNoExplainInsideTransaction() {
+        SlowQueryLog log = new SlowQueryLog(Duration.ZERO, 10).setExplainEnabled(true);
+        repository.setSlowQueryLog(log);
+
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status ->
+                repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 1));
+        repository.withTransaction(session ->
+                session.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 2));
+
+        assertEquals(2, log.getEntries().size());
+        assertNull(log.getPlan("sql/select_by_id.sql"));
+
+        repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class, "id", 1);
+        assertNotNull(log.getPlan("sql/select_by_id.sql"));
+    }
+
+    // Test that calls with stream parameters are recorded but never explained
+    @Test
+    public void testNoExplainWithStreamParameters() {
+        SlowQueryLog log = new SlowQueryLog(Duration.ZERO, 10).setExplainEnabled(true);
+        repository.setSlowQueryLog(log);
+
+        repository.rawQueryForObject("sql/select_by_id.sql", TestEntity.class,
+                "id", 1, "attachment", new ByteArrayInputStream(new byte[16]));
+
+        assertEquals(1, log.getEntries().size());
+        assertNull(log.getPlan("sql/select_by_id.sql"));
+    }
+
+    // Test that detaching the log stops recording
+    @Test
+    public void testDetach() {
+        SlowQueryLog log = new SlowQueryLog(Duration.ZERO, 10);
+        repository.setSlowQueryLog(log);
+        repository.setSlowQueryLog(null);
+
+        repository.rawQuery("sql/select_all.sql", TestEntity.class);
+        assertTrue(log.getEntries().isEmpty());
+    }
+
+    // Test that plan eligibility is only checked for slow calls with EXPLAIN enabled and no plan yet
+    @Test
+    public void testPlanCheckOnlyForSlowCalls() {
+        MapSqlParameterSource params = new MapSqlParameterSource("id", 1);
+        AtomicInteger checks = new AtomicInteger();
+        BooleanSupplier planAllowed = () -> checks.incrementAndGet() > 0;
+
+        SlowQueryLog fast = new SlowQueryLog(Duration.ofHours(1), 10).setExplainEnabled(true);
+        assertFalse(fast.finish("sql/select_by_id.sql", params, fast.start(), 1, planAllowed));
+        SlowQueryLog noExplain = new SlowQueryLog(Duration.ZERO, 10);
+        assertFalse(noExplain.finish("sql/select_by_id.sql", params, noExplain.start(), 1, planAllowed));
+        assertEquals(0, checks.get());
+
+        SlowQueryLog slow = new SlowQueryLog(Duration.ZERO, 10).setExplainEnabled(true);
+        assertTrue(slow.finish("sql/select_by_id.sql", params, slow.start(), 1, planAllowed));
+        assertFalse(slow.finish("sql/select_by_id.sql", params, slow.start(), 1, planAllowed));
+        assertEquals(1, checks.get());
+    }
+}
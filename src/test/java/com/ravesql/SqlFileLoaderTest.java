@@ -0,0 +1,121 @@
+package com.ravesql;
+
+import com.ravesql.RaveRepository.SqlRepositoryException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlFileLoaderTest {
+
+    // Test loading a real SQL file from the classpath
+    @Test
+    public void testLoadFromClasspath() {
+        SqlFileLoader loader = new SqlFileLoader(getClass().getClassLoader());
+        assertEquals("SELECT * FROM test_table;", loader.load("sql/select_all.sql").trim());
+    }
+
+    // Test that a missing file surfaces as SqlRepositoryException
+    @Test
+    public void testMissingFile() {
+        SqlFileLoader loader = new SqlFileLoader(getClass().getClassLoader());
+        SqlRepositoryException e = assertThrows(SqlRepositoryException.class, () -> loader.load("sql/missing.sql"));
+        assertTrue(e.getMessage().contains("sql/missing.sql"));
+    }
+
+    // Test many threads hitting a cold cache: one read per path, slow paths don't stall fast ones
+    @Test
+    public void testConcurrentColdLoads() throws Exception {
+        int threads = 64;
+        AtomicInteger slowReads = new AtomicInteger();
+        AtomicInteger fastReads = new AtomicInteger();
+        CountDownLatch slowReadStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlowRead = new CountDownLatch(1);
+
+        SqlFileLoader loader = new SqlFileLoader(path -> {
+            if (path.equals("slow.sql")) {
+                slowReads.incrementAndGet();
+                slowReadStarted.countDown();
+                awaitQuietly(releaseSlowRead);
+                return "SELECT 'slow'";
+            }
+            fastReads.incrementAndGet();
+            return "SELECT '" + path + "'";
+        }, Duration.ofSeconds(5), System::nanoTime);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            List<Future<String>> slowLoads = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                slowLoads.add(executor.submit(() -> loader.load("slow.sql")));
+            }
+            assertTrue(slowReadStarted.await(5, TimeUnit.SECONDS));
+
+            // Other paths must load while the slow one is still in flight
+            Future<String> fast = executor.submit(() -> loader.load("fast.sql"));
+            assertEquals("SELECT 'fast.sql'", fast.get(5, TimeUnit.SECONDS));
+
+            releaseSlowRead.countDown();
+            for (Future<String> load : slowLoads) {
+                assertEquals("SELECT 'slow'", load.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, slowReads.get());
+        assertEquals(1, fastReads.get());
+    }
+
+    // Test that failures are cached for the TTL and retried once it expires
+    @Test
+    public void testFailuresAreCachedNegatively() {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicLong now = new AtomicLong();
+        SqlFileLoader loader = new SqlFileLoader(path -> {
+            if (reads.incrementAndGet() == 1) {
+                throw new SqlRepositoryException("SQL file not found: " + path);
+            }
+            return "SELECT 1";
+        }, Duration.ofSeconds(5), now::get);
+
+        assertThrows(SqlRepositoryException.class, () -> loader.load("flaky.sql"));
+        assertThrows(SqlRepositoryException.class, () -> loader.load("flaky.sql"));
+        assertEquals(1, reads.get());
+
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertEquals("SELECT 1", loader.load("flaky.sql"));
+        assertEquals(2, reads.get());
+    }
+
+    // Test that clearing the cache forgets both SQL and failures
+    @Test
+    public void testClear() {
+        AtomicInteger reads = new AtomicInteger();
+        SqlFileLoader loader = new SqlFileLoader(path -> "SELECT " + reads.incrementAndGet(),
+                Duration.ofSeconds(5), System::nanoTime);
+
+        assertEquals("SELECT 1", loader.load("a.sql"));
+        assertEquals("SELECT 1", loader.load("a.sql"));
+        loader.clear();
+        assertEquals("SELECT 2", loader.load("a.sql"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
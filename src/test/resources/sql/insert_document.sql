@@ -0,0 +1 @@
+INSERT INTO document_table (id, content, body) VALUES (:id, :content, :body);
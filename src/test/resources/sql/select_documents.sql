@@ -0,0 +1 @@
+SELECT * FROM document_table ORDER BY id;
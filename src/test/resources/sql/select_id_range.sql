@@ -0,0 +1 @@
+SELECT * FROM test_table WHERE id >= :rangeStart AND id < :rangeEnd ORDER BY id;
@@ -0,0 +1,5 @@
+SELECT o.id, o.customer, o.status, i.id AS item_id, i.sku AS item_sku, i.quantity AS item_quantity
+FROM orders o
+LEFT JOIN line_items i ON i.order_id = o.id
+WHERE o.id >= :minId
+ORDER BY i.id NULLS LAST;